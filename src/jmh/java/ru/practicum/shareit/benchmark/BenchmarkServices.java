@@ -0,0 +1,74 @@
+package ru.practicum.shareit.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.unit.DataSize;
+import ru.practicum.shareit.booking.ApprovedBookings;
+import ru.practicum.shareit.booking.BookingEvents;
+import ru.practicum.shareit.booking.BookingEventsProperties;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.BookingServiceImpl;
+import ru.practicum.shareit.common.CollectionVersions;
+import ru.practicum.shareit.common.DtoValidator;
+import ru.practicum.shareit.common.JsonCache;
+import ru.practicum.shareit.common.JsonCacheProperties;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.ItemServiceImpl;
+import ru.practicum.shareit.request.ItemRequestService;
+import ru.practicum.shareit.request.ItemRequestServiceImpl;
+import ru.practicum.shareit.storage.EntityStorageFactory;
+import ru.practicum.shareit.storage.InMemoryEntityStorageFactory;
+import ru.practicum.shareit.user.UserDto;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.UserServiceImpl;
+
+import java.time.Duration;
+
+/**
+ * Сервисы, собранные без Spring поверх хранилищ в памяти, как в приложении по умолчанию.
+ */
+final class BenchmarkServices {
+    final UserService users;
+    final ItemRequestService requests;
+    final ItemService items;
+    final BookingService bookings;
+
+    BenchmarkServices() {
+        // Отладочный лог сервисов измерял бы консоль, а не код
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        DtoValidator validator = new DtoValidator(Validation.buildDefaultValidatorFactory().getValidator());
+        EntityStorageFactory storageFactory = new InMemoryEntityStorageFactory();
+        ApprovedBookings approvedBookings = new ApprovedBookings();
+        // Счётчики и гейджи остаются в коде сервисов, таймеры @Timed без прокси Spring не работают
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        JsonMapper jsonMapper = JsonMapper.builder().findAndAddModules().build();
+        JsonCache jsonCache = new JsonCache(jsonMapper,
+                new JsonCacheProperties(true, DataSize.ofMegabytes(64)), meterRegistry);
+        CollectionVersions versions = new CollectionVersions();
+
+        users = new UserServiceImpl(validator, jsonCache, versions, storageFactory, meterRegistry);
+        requests = new ItemRequestServiceImpl(users, versions, storageFactory, meterRegistry);
+        items = new ItemServiceImpl(users, requests, approvedBookings, validator, jsonCache, versions,
+                storageFactory, meterRegistry);
+        // Подписчиков нет, публикация событий сводится к двум поискам в пустой карте
+        BookingEvents events = new BookingEvents(users, jsonMapper,
+                new BookingEventsProperties(Duration.ofMinutes(30), Duration.ofSeconds(30), 256), meterRegistry);
+        bookings = new BookingServiceImpl(users, items, approvedBookings, events, validator, jsonCache, versions,
+                storageFactory, meterRegistry);
+    }
+
+    /**
+     * Создаёт count пользователей; id выдаются подряд начиная с 1.
+     */
+    void createUsers(long count) {
+        for (long i = 1; i <= count; i++) {
+            users.createUser(new UserDto(null, "user" + i, "user" + i + "@example.com"));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.booking.BookingDto;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.common.Page;
+import ru.practicum.shareit.common.PageRequest;
+import ru.practicum.shareit.item.ItemDto;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Списки бронирований арендатора и владельца по каждому состоянию.
+ * Бронирования одной вещи идут друг за другом с шагом 3 часа и длятся 2 часа,
+ * середина расписания приходится на момент запуска, так что есть и прошлые, и будущие, и текущие.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class BookingServiceBenchmark {
+    private static final int OWNERS = 10;
+    private static final int BOOKERS = 100;
+    private static final int ITEMS = 1000;
+    private static final int PAGE_SIZE = 20;
+    private static final BookingStatus[] STATUSES = BookingStatus.values();
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int bookings;
+
+    @Param({"ALL", "CURRENT", "PAST", "FUTURE", "WAITING", "REJECTED"})
+    public String state;
+
+    private BenchmarkServices services;
+
+    @Setup
+    public void setUp() {
+        services = new BenchmarkServices();
+        services.createUsers(OWNERS + BOOKERS);
+        for (int i = 0; i < ITEMS; i++) {
+            services.items.addItem(new ItemDto(null, "Item " + i, "Item number " + i, true, null, null),
+                    (long) (i % OWNERS) + 1);
+        }
+
+        LocalDateTime first = LocalDateTime.now().minusHours(3L * (bookings / ITEMS / 2));
+        for (int i = 0; i < bookings; i++) {
+            LocalDateTime start = first.plusHours(3L * (i / ITEMS));
+            services.bookings.restoreBooking(new BookingDto((long) i + 1, start, start.plusHours(2),
+                    (long) (i % ITEMS) + 1, (long) OWNERS + 1 + i % BOOKERS, STATUSES[i % STATUSES.length]));
+        }
+    }
+
+    @Benchmark
+    public Page<BookingDto> getAllBookingsForUser() {
+        return services.bookings.getAllBookingsForUser((long) OWNERS + 1, state, PageRequest.of(0, PAGE_SIZE, null));
+    }
+
+    @Benchmark
+    public Page<BookingDto> getAllBookingsForOwner() {
+        return services.bookings.getAllBookingsForOwner(1L, state, PageRequest.of(0, PAGE_SIZE, null));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Page<BookingDto> getAllBookingsForUserConcurrently() {
+        return getAllBookingsForUser();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Page<BookingDto> getAllBookingsForOwnerConcurrently() {
+        return getAllBookingsForOwner();
+    }
+}
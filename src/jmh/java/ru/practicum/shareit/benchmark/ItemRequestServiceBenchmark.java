@@ -0,0 +1,62 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.common.Page;
+import ru.practicum.shareit.common.PageRequest;
+import ru.practicum.shareit.request.ItemRequestDto;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Лента чужих запросов со смещением from: стоимость растёт с глубиной, курсор её не имеет.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ItemRequestServiceBenchmark {
+    private static final int REQUESTORS = 100;
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int requests;
+
+    @Param({"0", "1000", "100000"})
+    public int from;
+
+    private BenchmarkServices services;
+
+    @Setup
+    public void setUp() {
+        services = new BenchmarkServices();
+        services.createUsers(REQUESTORS);
+        for (int i = 0; i < requests; i++) {
+            services.requests.createRequest(new ItemRequestDto(null, "Need item " + i, null, null, null),
+                    (long) (i % REQUESTORS) + 1);
+        }
+    }
+
+    @Benchmark
+    public Page<ItemRequestDto> getAllRequests() {
+        return services.requests.getAllRequests(1L, PageRequest.of(from, PAGE_SIZE, null));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Page<ItemRequestDto> getAllRequestsConcurrently() {
+        return getAllRequests();
+    }
+}
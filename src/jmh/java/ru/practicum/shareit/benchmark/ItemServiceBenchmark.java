@@ -0,0 +1,79 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.common.Page;
+import ru.practicum.shareit.common.PageRequest;
+import ru.practicum.shareit.item.ItemDto;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск вещей и список вещей владельца. Вещи поровну распределены между OWNERS владельцами.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ItemServiceBenchmark {
+    private static final int OWNERS = 100;
+    private static final int PAGE_SIZE = 20;
+    private static final String[] NAMES = {"Drill", "Saw", "Ladder", "Tent", "Bicycle", "Camera", "Kayak", "Projector"};
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int items;
+
+    private BenchmarkServices services;
+
+    @Setup
+    public void setUp() {
+        services = new BenchmarkServices();
+        services.createUsers(OWNERS);
+        for (int i = 0; i < items; i++) {
+            String name = NAMES[i % NAMES.length] + " " + i;
+            services.items.addItem(new ItemDto(null, name, "Item number " + i, true, null, null),
+                    (long) (i % OWNERS) + 1);
+        }
+    }
+
+    @Benchmark
+    public Page<ItemDto> searchItems(Query query) {
+        return services.items.searchItems(query.text, PageRequest.of(0, PAGE_SIZE, null));
+    }
+
+    @Benchmark
+    public Page<ItemDto> getAllItemsByOwner() {
+        return services.items.getAllItemsByOwner(1L, PageRequest.of(0, PAGE_SIZE, null));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Page<ItemDto> searchItemsConcurrently(Query query) {
+        return searchItems(query);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Page<ItemDto> getAllItemsByOwnerConcurrently() {
+        return getAllItemsByOwner();
+    }
+
+    @State(Scope.Benchmark)
+    public static class Query {
+        // Короткий запрос читается одним списком n-грамм, длинный — пересечением триграмм
+        @Param({"dri", "ladder 7"})
+        public String text;
+    }
+}
@@ -0,0 +1,82 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.item.ItemDto;
+import ru.practicum.shareit.request.ItemRequestDto;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Добавление вещи при заданном числе запросов: подбор к запросам должен зависеть от числа
+ * запросов с общими словами, а не от числа всех запросов.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class RequestMatchingBenchmark {
+    private static final int REQUESTORS = 100;
+    private static final int VOCABULARY = 5000;
+    private static final int WORDS_PER_TEXT = 4;
+
+    @Param({"1000", "100000", "1000000"})
+    public int requests;
+
+    private BenchmarkServices services;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        services = new BenchmarkServices();
+        // Последний пользователь — владелец вещей, у него нет запросов
+        services.createUsers(REQUESTORS + 1);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < requests; i++) {
+            services.requests.createRequest(new ItemRequestDto(null, text(random), null, null, null),
+                    (long) (i % REQUESTORS) + 1);
+        }
+    }
+
+    @Benchmark
+    public ItemDto addItem() {
+        SplittableRandom random = new SplittableRandom(sequence.incrementAndGet());
+        ItemDto item = new ItemDto();
+        item.setName(word(random));
+        item.setDescription(text(random));
+        item.setAvailable(true);
+        return services.items.addItem(item, REQUESTORS + 1L);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ItemDto addItemConcurrently() {
+        return addItem();
+    }
+
+    private static String text(SplittableRandom random) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < WORDS_PER_TEXT; i++) {
+            text.append(word(random)).append(' ');
+        }
+        return text.toString();
+    }
+
+    private static String word(SplittableRandom random) {
+        return "word" + random.nextInt(VOCABULARY);
+    }
+}
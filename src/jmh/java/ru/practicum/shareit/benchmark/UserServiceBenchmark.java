@@ -0,0 +1,53 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.user.UserDto;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Создание пользователя на фоне уже существующих; каждый вызов занимает новый email.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class UserServiceBenchmark {
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int users;
+
+    private BenchmarkServices services;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        services = new BenchmarkServices();
+        services.createUsers(users);
+    }
+
+    @Benchmark
+    public UserDto createUser() {
+        long n = sequence.incrementAndGet();
+        return services.users.createUser(new UserDto(null, "bench" + n, "bench" + n + "@example.com"));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public UserDto createUserConcurrently() {
+        return createUser();
+    }
+}
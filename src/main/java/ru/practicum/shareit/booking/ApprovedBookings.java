@@ -0,0 +1,73 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+
+/**
+ * Подтверждённые бронирования каждой вещи по возрастанию start. Подтверждённые интервалы
+ * одной вещи не пересекаются, поэтому start однозначен. Последнее и следующее бронирование
+ * ищутся относительно текущего момента за O(log n), так что «сдвигаются» сами со временем.
+ * Хранятся только ключи, общие с индексами BookingService; арендатор читается из хранилища бронирований.
+ * Отдельный бин, чтобы ItemService читал его без зависимости от BookingService.
+ */
+@Component
+public class ApprovedBookings {
+    private final Map<Long, NavigableMap<Long, BookingKey>> byItem = new ConcurrentHashMap<>();
+    // Начала подтверждённых бронирований всех вещей владельца: в эти моменты меняется его список вещей
+    private final Map<Long, NavigableSet<Long>> startsByOwner = new ConcurrentHashMap<>();
+    private volatile Function<Long, Booking> bookings = id -> null;
+
+    /**
+     * Хранилище, из которого собираются BookingShortDto; задаёт BookingService при создании.
+     */
+    void readFrom(Function<Long, Booking> bookings) {
+        this.bookings = bookings;
+    }
+
+    void add(BookingKey key, long itemId, long ownerId) {
+        byItem.computeIfAbsent(itemId, id -> new ConcurrentSkipListMap<>()).put(key.start(), key);
+        startsByOwner.computeIfAbsent(ownerId, id -> new ConcurrentSkipListSet<>()).add(key.start());
+    }
+
+    /**
+     * Ближайший после now момент (мс), когда у какой-то вещи владельца сменятся последнее
+     * и следующее бронирование, или 0, если таких моментов больше нет.
+     */
+    public long nextChange(Long ownerId, LocalDateTime now) {
+        NavigableSet<Long> starts = startsByOwner.get(ownerId);
+        Long next = starts != null ? starts.higher(Booking.toMillis(now)) : null;
+        return next != null ? next : 0;
+    }
+
+    /**
+     * Последнее подтверждённое бронирование, начавшееся до now, или null.
+     */
+    public BookingShortDto last(Long itemId, LocalDateTime now) {
+        NavigableMap<Long, BookingKey> keys = byItem.get(itemId);
+        return keys != null ? toShortDto(keys.lowerEntry(Booking.toMillis(now))) : null;
+    }
+
+    /**
+     * Ближайшее подтверждённое бронирование, начинающееся после now, или null.
+     */
+    public BookingShortDto next(Long itemId, LocalDateTime now) {
+        NavigableMap<Long, BookingKey> keys = byItem.get(itemId);
+        return keys != null ? toShortDto(keys.higherEntry(Booking.toMillis(now))) : null;
+    }
+
+    private BookingShortDto toShortDto(Map.Entry<Long, BookingKey> entry) {
+        if (entry == null) {
+            return null;
+        }
+        Booking booking = bookings.apply(entry.getValue().id());
+        return booking != null ? BookingMapper.toBookingShortDto(booking) : null;
+    }
+}
@@ -1,36 +1,38 @@
 package ru.practicum.shareit.booking;
 
-import jakarta.validation.constraints.Future;
-import jakarta.validation.constraints.FutureOrPresent;
-import jakarta.validation.constraints.NotNull;
-import lombok.*;
-import ru.practicum.shareit.item.Item;
-import ru.practicum.shareit.user.User;
-
+import java.time.Instant;
 import java.time.LocalDateTime;
-
-@Getter
-@Setter
-@NoArgsConstructor
-@AllArgsConstructor
-@ToString
-public class Booking {
-    private Long id;
-
-    @NotNull(message = "Start time is required")
-    @FutureOrPresent(message = "Start time must be in present or future")
-    private LocalDateTime start;
-
-    @NotNull(message = "End time is required")
-    @Future(message = "End time must be in future")
-    private LocalDateTime end;
-
-    @NotNull(message = "Item is required")
-    private Item item;
-
-    @NotNull(message = "Booker is required")
-    private User booker;
-
-    @NotNull(message = "Status is required")
-    private BookingStatus status;
+import java.time.ZoneOffset;
+
+/**
+ * Внутреннее представление бронирования: только примитивы, около 64 байт на объект.
+ * Время хранится в миллисекундах эпохи (LocalDateTime трактуется как UTC), вещь, владелец
+ * и арендатор — идентификаторами. BookingDto собирается из него только на границе API.
+ */
+record Booking(long id, long start, long end, long itemId, long ownerId, long bookerId, byte statusCode) {
+    private static final BookingStatus[] STATUSES = BookingStatus.values();
+
+    static Booking of(BookingKey slot, long itemId, long ownerId, long bookerId, BookingStatus status) {
+        return new Booking(slot.id(), slot.start(), slot.end(), itemId, ownerId, bookerId, code(status));
+    }
+
+    BookingStatus status() {
+        return STATUSES[statusCode];
+    }
+
+    Booking withStatus(BookingStatus status) {
+        return new Booking(id, start, end, itemId, ownerId, bookerId, code(status));
+    }
+
+    static byte code(BookingStatus status) {
+        return (byte) status.ordinal();
+    }
+
+    static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    static LocalDateTime toTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
 }
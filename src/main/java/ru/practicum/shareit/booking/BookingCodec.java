@@ -0,0 +1,26 @@
+package ru.practicum.shareit.booking;
+
+import ru.practicum.shareit.storage.EntityCodec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+class BookingCodec implements EntityCodec<Booking> {
+    @Override
+    public void write(Booking booking, DataOutput out) throws IOException {
+        out.writeLong(booking.id());
+        out.writeLong(booking.start());
+        out.writeLong(booking.end());
+        out.writeLong(booking.itemId());
+        out.writeLong(booking.ownerId());
+        out.writeLong(booking.bookerId());
+        out.writeByte(booking.statusCode());
+    }
+
+    @Override
+    public Booking read(DataInput in) throws IOException {
+        return new Booking(in.readLong(), in.readLong(), in.readLong(),
+                in.readLong(), in.readLong(), in.readLong(), in.readByte());
+    }
+}
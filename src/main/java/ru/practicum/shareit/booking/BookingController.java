@@ -3,7 +3,17 @@ package ru.practicum.shareit.booking;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.common.BatchResult;
+import ru.practicum.shareit.common.NdjsonWriter;
+import ru.practicum.shareit.common.Page;
+import ru.practicum.shareit.common.PageRequest;
+import ru.practicum.shareit.exception.BookingConflictException;
 import ru.practicum.shareit.exception.ForbiddenException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
@@ -15,9 +25,13 @@ import java.util.List;
 public class BookingController {
     private static final Logger log = LoggerFactory.getLogger(BookingController.class);
     private final BookingService bookingService;
+    private final NdjsonWriter ndjsonWriter;
+    private final BookingEvents bookingEvents;
 
-    public BookingController(BookingService bookingService) {
+    public BookingController(BookingService bookingService, NdjsonWriter ndjsonWriter, BookingEvents bookingEvents) {
         this.bookingService = bookingService;
+        this.ndjsonWriter = ndjsonWriter;
+        this.bookingEvents = bookingEvents;
     }
 
     @PostMapping
@@ -35,6 +49,26 @@ public class BookingController {
         return createdBooking;
     }
 
+    @PostMapping("/batch")
+    public List<BatchResult<BookingDto>> createBookings(
+            @RequestBody List<BookingDto> bookingDtos,
+            @RequestHeader("X-Sharer-User-Id") Long userId
+    ) {
+        log.info("POST /bookings/batch - User {} creating {} bookings", userId, bookingDtos.size());
+        return bookingService.createBookings(bookingDtos, userId);
+    }
+
+    @PatchMapping("/batch")
+    public List<BatchResult<BookingDto>> approveBookings(
+            @RequestBody List<Long> bookingIds,
+            @RequestParam boolean approved,
+            @RequestHeader("X-Sharer-User-Id") Long userId
+    ) {
+        log.info("PATCH /bookings/batch - User {} {} {} bookings",
+                userId, approved ? "approving" : "rejecting", bookingIds.size());
+        return bookingService.approveBookings(bookingIds, userId, approved);
+    }
+
     @PatchMapping("/{bookingId}")
     public BookingDto approveBooking(
             @PathVariable Long bookingId,
@@ -49,6 +83,16 @@ public class BookingController {
         return updatedBooking;
     }
 
+    /**
+     * Поток SSE с бронированиями пользователя при создании и смене статуса, вместо опроса
+     * GET /bookings/{id} и GET /bookings/owner?state=WAITING.
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToEvents(@RequestHeader("X-Sharer-User-Id") Long userId) {
+        log.info("GET /bookings/events - User {} subscribing to booking events", userId);
+        return bookingEvents.subscribe(userId);
+    }
+
     @GetMapping("/{bookingId}")
     public BookingDto getBookingById(
             @PathVariable Long bookingId,
@@ -62,27 +106,83 @@ public class BookingController {
     }
 
     @GetMapping
-    public List<BookingDto> getAllBookingsForUser(
+    public ResponseEntity<List<BookingDto>> getAllBookingsForUser(
             @RequestHeader("X-Sharer-User-Id") Long userId,
-            @RequestParam(defaultValue = "ALL") String state
+            @RequestParam(defaultValue = "ALL") String state,
+            @RequestParam(defaultValue = "0") int from,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) List<Long> ids,
+            WebRequest request
     ) {
-        log.info("GET /bookings?state={} - Fetching bookings for user {}", state, userId);
-        List<BookingDto> bookings = bookingService.getAllBookingsForUser(userId, state);
+        if (ids != null) {
+            log.info("GET /bookings?ids= - Fetching {} bookings by ID for user {}", ids.size(), userId);
+            return ResponseEntity.ok(bookingService.getBookingsByIds(ids, userId));
+        }
+        log.info("GET /bookings?state={}&from={}&size={}&cursor={} - Fetching bookings for user {}",
+                state, from, size, cursor, userId);
+        if (notModified(request, bookingService.bookingsForUserETag(userId, state))) {
+            return null;
+        }
+        Page<BookingDto> bookings = bookingService.getAllBookingsForUser(userId, state,
+                PageRequest.of(from, size, cursor));
         log.debug("Fetched {} bookings for user {} with state {}",
-                bookings.size(), userId, state);
-        return bookings;
+                bookings.content().size(), userId, state);
+        return bookings.toResponseEntity();
+    }
+
+    @GetMapping(produces = NdjsonWriter.NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamBookingsForUser(
+            @RequestHeader("X-Sharer-User-Id") Long userId,
+            @RequestParam(defaultValue = "ALL") String state,
+            @RequestParam(defaultValue = "0") int from,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor
+    ) {
+        log.info("GET /bookings?state={}&from={}&size={}&cursor={} (ndjson) - Streaming bookings for user {}",
+                state, from, size, cursor, userId);
+        return ndjsonWriter.stream("bookings-by-booker", bookingService.streamBookingsForUser(userId, state,
+                PageRequest.of(from, size, cursor)));
     }
 
     @GetMapping("/owner")
-    public List<BookingDto> getAllBookingsForOwner(
+    public ResponseEntity<List<BookingDto>> getAllBookingsForOwner(
             @RequestHeader("X-Sharer-User-Id") Long ownerId,
-            @RequestParam(defaultValue = "ALL") String state
+            @RequestParam(defaultValue = "ALL") String state,
+            @RequestParam(defaultValue = "0") int from,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor,
+            WebRequest request
     ) {
-        log.info("GET /bookings/owner?state={} - Fetching bookings for owner {}", state, ownerId);
-        List<BookingDto> bookings = bookingService.getAllBookingsForOwner(ownerId, state);
+        log.info("GET /bookings/owner?state={}&from={}&size={}&cursor={} - Fetching bookings for owner {}",
+                state, from, size, cursor, ownerId);
+        if (notModified(request, bookingService.bookingsForOwnerETag(ownerId, state))) {
+            return null;
+        }
+        Page<BookingDto> bookings = bookingService.getAllBookingsForOwner(ownerId, state,
+                PageRequest.of(from, size, cursor));
         log.debug("Fetched {} bookings for owner {} with state {}",
-                bookings.size(), ownerId, state);
-        return bookings;
+                bookings.content().size(), ownerId, state);
+        return bookings.toResponseEntity();
+    }
+
+    // Для CURRENT, PAST и FUTURE ETag нет: список меняется со временем, и он всегда строится заново
+    private static boolean notModified(WebRequest request, String etag) {
+        return etag != null && request.checkNotModified(etag);
+    }
+
+    @GetMapping(value = "/owner", produces = NdjsonWriter.NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamBookingsForOwner(
+            @RequestHeader("X-Sharer-User-Id") Long ownerId,
+            @RequestParam(defaultValue = "ALL") String state,
+            @RequestParam(defaultValue = "0") int from,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor
+    ) {
+        log.info("GET /bookings/owner?state={}&from={}&size={}&cursor={} (ndjson) - Streaming bookings for owner {}",
+                state, from, size, cursor, ownerId);
+        return ndjsonWriter.stream("bookings-by-owner", bookingService.streamBookingsForOwner(ownerId, state,
+                PageRequest.of(from, size, cursor)));
     }
 
     @ExceptionHandler({NotFoundException.class})
@@ -106,6 +206,13 @@ public class BookingController {
         return ex.getMessage();
     }
 
+    @ExceptionHandler({BookingConflictException.class})
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public String handleConflict(Exception ex) {
+        log.warn("Booking conflict: {}", ex.getMessage());
+        return ex.getMessage();
+    }
+
     @ExceptionHandler({Exception.class})
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public String handleInternalError(Exception ex) {
@@ -0,0 +1,182 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.user.UserService;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Шина событий бронирований для подписок SSE: арендатор и владелец получают бронирование
+ * при создании и при подтверждении или отклонении. Соединение ждёт без потока (асинхронный
+ * запрос сервлета), поэтому простаивающих подписок могут быть десятки тысяч.
+ * Публикация только кладёт событие в очереди подписчиков; отправка идёт на виртуальных потоках,
+ * по одному на подписку за раз, так что порядок событий сохраняется, а медленный клиент
+ * не задерживает запись и других подписчиков. Истории нет: после переподключения
+ * клиент перечитывает состояние обычным GET.
+ */
+@Component
+public class BookingEvents implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(BookingEvents.class);
+    static final String EVENT_NAME = "booking";
+    // Комментарий SSE: держит соединение через прокси и выявляет отключившихся клиентов
+    private static final Set<DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("").build();
+
+    private final UserService userService;
+    private final ObjectMapper objectMapper;
+    private final BookingEventsProperties properties;
+    private final Map<Long, Set<Subscription>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final ExecutorService delivery = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("booking-events-", 0).factory());
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("booking-events-heartbeat").daemon().factory());
+
+    public BookingEvents(UserService userService, ObjectMapper objectMapper, BookingEventsProperties properties,
+                         MeterRegistry meterRegistry) {
+        this.userService = userService;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+
+        long interval = properties.heartbeat().toMillis();
+        heartbeat.scheduleWithFixedDelay(this::sendHeartbeat, interval, interval, TimeUnit.MILLISECONDS);
+        Gauge.builder("shareit.events.subscribers", connections, AtomicInteger::get)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Подписка пользователя на события своих бронирований как арендатора и как владельца.
+     */
+    public SseEmitter subscribe(Long userId) {
+        userService.getUserEntityById(userId); // Проверка существования пользователя
+
+        SseEmitter emitter = new SseEmitter(properties.timeout().toMillis());
+        Subscription subscription = new Subscription(userId, emitter);
+        subscribers.compute(userId, (id, set) -> {
+            Set<Subscription> result = set != null ? set : ConcurrentHashMap.newKeySet();
+            result.add(subscription);
+            return result;
+        });
+        connections.incrementAndGet();
+        // После таймаута и ошибки Spring завершает запрос и вызывает onCompletion
+        emitter.onCompletion(() -> remove(subscription));
+        log.debug("User {} subscribed to booking events", userId);
+        return emitter;
+    }
+
+    /**
+     * Вызывается после записи; без подписчиков у сторон бронирования ничего не сериализуется.
+     */
+    void publish(Booking booking) {
+        Set<Subscription> booker = subscribers.get(booking.bookerId());
+        Set<Subscription> owner = subscribers.get(booking.ownerId());
+        if (booker == null && owner == null) {
+            return;
+        }
+
+        Set<DataWithMediaType> event;
+        try {
+            // Сериализуется один раз на всех подписчиков
+            event = SseEmitter.event()
+                    .name(EVENT_NAME)
+                    .data(objectMapper.writeValueAsString(BookingMapper.toBookingDto(booking)))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize booking " + booking.id(), e);
+        }
+        offer(booker, event);
+        offer(owner, event);
+    }
+
+    @Override
+    public void destroy() {
+        heartbeat.shutdownNow();
+        delivery.shutdownNow();
+        subscribers.values().forEach(set -> set.forEach(subscription -> subscription.emitter.complete()));
+    }
+
+    private void sendHeartbeat() {
+        subscribers.values().forEach(set -> offer(set, HEARTBEAT));
+    }
+
+    private void offer(Set<Subscription> set, Set<DataWithMediaType> event) {
+        if (set != null) {
+            set.forEach(subscription -> subscription.offer(event));
+        }
+    }
+
+    private void remove(Subscription subscription) {
+        subscribers.computeIfPresent(subscription.userId, (id, set) -> {
+            if (set.remove(subscription)) {
+                connections.decrementAndGet();
+            }
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private final class Subscription {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final Queue<Set<DataWithMediaType>> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Subscription(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        void offer(Set<DataWithMediaType> event) {
+            if (size.incrementAndGet() > properties.maxPending()) {
+                // Клиент не успевает читать: отключаем, после переподключения он перечитает состояние
+                log.warn("Closing booking events of user {}: {} events pending", userId, properties.maxPending());
+                remove(this);
+                pending.clear();
+                emitter.complete();
+                return;
+            }
+            pending.add(event);
+            if (draining.compareAndSet(false, true)) {
+                delivery.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                Set<DataWithMediaType> event;
+                while ((event = pending.poll()) != null) {
+                    size.decrementAndGet();
+                    try {
+                        emitter.send(event);
+                    } catch (IOException | IllegalStateException e) {
+                        // Клиент отключился или подписка уже завершена; запрос завершит сам контейнер
+                        log.debug("Dropping booking events subscription of user {}: {}", userId, e.toString());
+                        remove(this);
+                        pending.clear();
+                        return;
+                    }
+                }
+                draining.set(false);
+            } while (!pending.isEmpty() && draining.compareAndSet(false, true));
+        }
+    }
+}
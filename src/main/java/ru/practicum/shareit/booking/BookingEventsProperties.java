@@ -0,0 +1,14 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "shareit.events")
+public record BookingEventsProperties(
+        @DefaultValue("30m") Duration timeout,
+        @DefaultValue("30s") Duration heartbeat,
+        @DefaultValue("256") int maxPending
+) {
+}
@@ -0,0 +1,132 @@
+package ru.practicum.shareit.booking;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Вторичный индекс бронирований по пользователю (арендатору или владельцу вещи).
+ * Для каждого пользователя хранится список по убыванию start и отдельные списки по статусам.
+ * FUTURE — это префикс списка до текущего момента, PAST читается из остатка.
+ * CURRENT читается из отдельного списка ещё не закончившихся бронирований в том же порядке:
+ * закончившиеся выбрасываются из него при обходе, поэтому запрос стоит O(log n + k)
+ * (амортизированно), а не зависит от числа прошлых бронирований.
+ */
+class BookingIndex {
+    // Текущий момент берётся из LocalDateTime.now() и при переводе часов может отступить назад:
+    // закончившееся бронирование выбрасывается из списка текущих только спустя сутки
+    private static final long EVICTION_LAG = TimeUnit.DAYS.toMillis(1);
+
+    private final Map<Long, Timeline> byUser = new ConcurrentHashMap<>();
+
+    void add(long userId, BookingKey key, BookingStatus status) {
+        byUser.computeIfAbsent(userId, id -> new Timeline()).add(key, status);
+    }
+
+    void changeStatus(long userId, Booking booking, BookingStatus previous) {
+        Timeline timeline = byUser.get(userId);
+        if (timeline != null) {
+            timeline.changeStatus(BookingKey.of(booking), previous, booking.status());
+        }
+    }
+
+    /**
+     * Бронирования пользователя в состоянии state, идущие после after (если задан).
+     * onScan вызывается на каждый просмотренный ключ, в том числе отброшенный фильтром.
+     */
+    Stream<BookingKey> select(long userId, BookingState state, long now, BookingKey after, Runnable onScan) {
+        Timeline timeline = byUser.get(userId);
+        return timeline != null ? timeline.select(state, now, after, onScan) : Stream.empty();
+    }
+
+    int users() {
+        return byUser.size();
+    }
+
+    private static class Timeline {
+        private final NavigableSet<BookingKey> byStart = new ConcurrentSkipListSet<>();
+        private final Map<BookingStatus, NavigableSet<BookingKey>> byStatus = new EnumMap<>(BookingStatus.class);
+        // Бронирования, про которые ещё не известно, что они закончились
+        private final NavigableSet<BookingKey> unfinished = new ConcurrentSkipListSet<>();
+
+        Timeline() {
+            for (BookingStatus status : BookingStatus.values()) {
+                byStatus.put(status, new ConcurrentSkipListSet<>());
+            }
+        }
+
+        void add(BookingKey key, BookingStatus status) {
+            byStart.add(key);
+            unfinished.add(key);
+            if (status != null) {
+                byStatus.get(status).add(key);
+            }
+        }
+
+        void changeStatus(BookingKey key, BookingStatus previous, BookingStatus current) {
+            if (current != null) {
+                byStatus.get(current).add(key);
+            }
+            if (previous != null && previous != current) {
+                byStatus.get(previous).remove(key);
+            }
+        }
+
+        Stream<BookingKey> select(BookingState state, long now, BookingKey after, Runnable onScan) {
+            BookingKey boundary = BookingKey.startingAt(now);
+            Stream<BookingKey> scanned = source(state, boundary, after).stream().peek(key -> onScan.run());
+            return switch (state) {
+                case CURRENT -> scanned.filter(key -> current(key, now));
+                case PAST -> scanned.filter(key -> key.end() < now);
+                default -> scanned;
+            };
+        }
+
+        private NavigableSet<BookingKey> source(BookingState state, BookingKey boundary, BookingKey after) {
+            return switch (state) {
+                case ALL -> after(byStart, after);
+                case FUTURE -> future(boundary, after);
+                case CURRENT -> started(unfinished, boundary, after);
+                case PAST -> started(byStart, boundary, after);
+                case WAITING -> after(byStatus.get(BookingStatus.WAITING), after);
+                case REJECTED -> after(byStatus.get(BookingStatus.REJECTED), after);
+            };
+        }
+
+        private NavigableSet<BookingKey> future(BookingKey boundary, BookingKey after) {
+            if (after == null) {
+                return byStart.headSet(boundary, false);
+            }
+            if (after.compareTo(boundary) >= 0) {
+                return Collections.emptyNavigableSet();
+            }
+            return byStart.subSet(after, false, boundary, false);
+        }
+
+        // Начавшиеся до boundary, после курсора
+        private static NavigableSet<BookingKey> started(NavigableSet<BookingKey> keys, BookingKey boundary,
+                                                        BookingKey after) {
+            if (after != null && after.compareTo(boundary) >= 0) {
+                return keys.tailSet(after, false);
+            }
+            return keys.tailSet(boundary, true);
+        }
+
+        private boolean current(BookingKey key, long now) {
+            if (key.end() <= now - EVICTION_LAG) {
+                unfinished.remove(key);
+                return false;
+            }
+            return key.start() < now && key.end() > now;
+        }
+
+        private static NavigableSet<BookingKey> after(NavigableSet<BookingKey> keys, BookingKey after) {
+            return after != null ? keys.tailSet(after, false) : keys;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package ru.practicum.shareit.booking;
+
+import ru.practicum.shareit.common.Cursor;
+
+/**
+ * Ключ сортировки бронирований: сначала поздние по start, при равенстве — большие id.
+ * end хранится в ключе, чтобы фильтровать по времени без обращения к хранилищу.
+ * Время — миллисекунды эпохи, как в {@link Booking}, поэтому сравнение не создаёт объектов.
+ */
+record BookingKey(long start, long end, long id) implements Comparable<BookingKey> {
+    static BookingKey of(Booking booking) {
+        return new BookingKey(booking.start(), booking.end(), booking.id());
+    }
+
+    /**
+     * Позиция курсора: сравнение идёт только по start и id, поэтому end не важен.
+     */
+    static BookingKey after(Cursor cursor) {
+        long start = Booking.toMillis(cursor.sortKeyAsTime());
+        return new BookingKey(start, start, cursor.id());
+    }
+
+    /**
+     * Граница, отделяющая бронирования со start после moment от остальных.
+     */
+    static BookingKey startingAt(long moment) {
+        return new BookingKey(moment, moment, Long.MAX_VALUE);
+    }
+
+    @Override
+    public int compareTo(BookingKey other) {
+        int byStart = Long.compare(other.start, start);
+        return byStart != 0 ? byStart : Long.compare(other.id, id);
+    }
+}
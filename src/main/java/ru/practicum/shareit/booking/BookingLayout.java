@@ -0,0 +1,30 @@
+package ru.practicum.shareit.booking;
+
+import ru.practicum.shareit.storage.RecordLayout;
+
+// id, start, end, itemId, ownerId, bookerId, status
+class BookingLayout implements RecordLayout<Booking> {
+    private static final int SIZE = LONG * 6 + BYTE;
+
+    @Override
+    public int size() {
+        return SIZE;
+    }
+
+    @Override
+    public void write(Booking booking, Writer out) {
+        out.writeLong(booking.id());
+        out.writeLong(booking.start());
+        out.writeLong(booking.end());
+        out.writeLong(booking.itemId());
+        out.writeLong(booking.ownerId());
+        out.writeLong(booking.bookerId());
+        out.writeByte(booking.statusCode());
+    }
+
+    @Override
+    public Booking read(Reader in) {
+        return new Booking(in.readLong(), in.readLong(), in.readLong(),
+                in.readLong(), in.readLong(), in.readLong(), in.readByte());
+    }
+}
@@ -1,28 +1,23 @@
 package ru.practicum.shareit.booking;
 
-import ru.practicum.shareit.item.Item;
-import ru.practicum.shareit.user.User;
-
 public class BookingMapper {
     public static BookingDto toBookingDto(Booking booking) {
         return new BookingDto(
-                booking.getId(),
-                booking.getStart(),
-                booking.getEnd(),
-                booking.getItem().getId(),
-                booking.getBooker().getId(),
-                booking.getStatus()
+                booking.id(),
+                Booking.toTime(booking.start()),
+                Booking.toTime(booking.end()),
+                booking.itemId(),
+                booking.bookerId(),
+                booking.status()
         );
     }
 
-    public static Booking toBooking(BookingDto bookingDto, Item item, User booker) {
-        Booking booking = new Booking();
-        booking.setId(bookingDto.getId());
-        booking.setStart(bookingDto.getStart());
-        booking.setEnd(bookingDto.getEnd());
-        booking.setItem(item);
-        booking.setBooker(booker);
-        booking.setStatus(bookingDto.getStatus());
-        return booking;
+    public static BookingShortDto toBookingShortDto(Booking booking) {
+        return new BookingShortDto(
+                booking.id(),
+                booking.bookerId(),
+                Booking.toTime(booking.start()),
+                Booking.toTime(booking.end())
+        );
     }
 }
@@ -1,15 +1,47 @@
 package ru.practicum.shareit.booking;
 
+import ru.practicum.shareit.common.BatchResult;
+import ru.practicum.shareit.common.Page;
+import ru.practicum.shareit.common.PageRequest;
+
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface BookingService {
     BookingDto createBooking(BookingDto bookingDto, Long bookerId);
 
+    List<BatchResult<BookingDto>> createBookings(List<BookingDto> bookingDtos, Long bookerId);
+
     BookingDto approveBooking(Long bookingId, Long ownerId, boolean approved);
 
+    List<BatchResult<BookingDto>> approveBookings(List<Long> bookingIds, Long ownerId, boolean approved);
+
     BookingDto getBookingById(Long bookingId, Long userId);
 
-    List<BookingDto> getAllBookingsForUser(Long userId, String state);
+    List<BookingDto> getBookingsByIds(List<Long> bookingIds, Long userId);
+
+    Page<BookingDto> getAllBookingsForUser(Long userId, String state, PageRequest page);
+
+    Page<BookingDto> getAllBookingsForOwner(Long ownerId, String state, PageRequest page);
+
+    /**
+     * ETag списка бронирований пользователя в состоянии state или null, если список зависит от времени.
+     */
+    String bookingsForUserETag(Long userId, String state);
+
+    String bookingsForOwnerETag(Long ownerId, String state);
+
+    /**
+     * То же, что getAllBookingsForUser, но ленивым потоком и без курсора на следующую страницу.
+     */
+    Stream<BookingDto> streamBookingsForUser(Long userId, String state, PageRequest page);
+
+    Stream<BookingDto> streamBookingsForOwner(Long ownerId, String state, PageRequest page);
+
+    Stream<BookingDto> exportBookings();
 
-    List<BookingDto> getAllBookingsForOwner(Long ownerId, String state);
+    /**
+     * Сохраняет бронирование с уже выданным id и статусом (импорт данных).
+     */
+    void restoreBooking(BookingDto bookingDto);
 }
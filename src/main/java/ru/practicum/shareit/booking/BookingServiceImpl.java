@@ -1,43 +1,160 @@
 package ru.practicum.shareit.booking;
 
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import ru.practicum.shareit.common.BatchResult;
+import ru.practicum.shareit.common.CollectionVersions;
+import ru.practicum.shareit.common.Cursor;
+import ru.practicum.shareit.common.DtoValidator;
+import ru.practicum.shareit.common.JsonCache;
+import ru.practicum.shareit.common.Page;
+import ru.practicum.shareit.common.PageRequest;
+import ru.practicum.shareit.exception.BookingConflictException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.SelfBookingException;
 import ru.practicum.shareit.exception.UnavailableItemException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.Item;
 import ru.practicum.shareit.item.ItemService;
-import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.storage.EntityStorage;
+import ru.practicum.shareit.storage.EntityStorageFactory;
 import ru.practicum.shareit.user.UserService;
 
 import java.time.LocalDateTime;
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
+import java.util.Objects;
+import java.util.stream.Stream;
 
+@Timed(value = "shareit.service", histogram = true)
 @Service
 public class BookingServiceImpl implements BookingService {
     private static final Logger log = LoggerFactory.getLogger(BookingServiceImpl.class);
-    private final Map<Long, Booking> bookings = new HashMap<>();
-    private final AtomicLong idCounter = new AtomicLong(1);
+    private final EntityStorage<Booking> bookings;
+    private final BookingIndex bookingsByBooker = new BookingIndex();
+    private final BookingIndex bookingsByOwner = new BookingIndex();
+    private final ItemSchedule itemSchedule = new ItemSchedule();
+    private final ApprovedBookings approvedBookings;
+    private final BookingEvents events;
     private final UserService userService;
     private final ItemService itemService;
-
-    public BookingServiceImpl(UserService userService, ItemService itemService) {
+    private final DtoValidator dtoValidator;
+    private final JsonCache jsonCache;
+    private final CollectionVersions versions;
+    private final SelectionMetrics bookerSelection;
+    private final SelectionMetrics ownerSelection;
+
+    public BookingServiceImpl(UserService userService, ItemService itemService,
+                              ApprovedBookings approvedBookings, BookingEvents events, DtoValidator dtoValidator,
+                              JsonCache jsonCache, CollectionVersions versions, EntityStorageFactory storageFactory,
+                              MeterRegistry meterRegistry) {
         this.userService = userService;
         this.itemService = itemService;
+        this.approvedBookings = approvedBookings;
+        this.events = events;
+        this.dtoValidator = dtoValidator;
+        this.jsonCache = jsonCache;
+        this.versions = versions;
+        this.bookings = storageFactory.create("bookings", new BookingCodec(), new BookingLayout(),
+                this::rebuildIndexes);
+        approvedBookings.readFrom(bookings::get);
+
+        Gauge.builder("shareit.entities", bookings, EntityStorage::size).tag("type", "booking")
+                .register(meterRegistry);
+        Gauge.builder("shareit.index.entries", bookingsByBooker, BookingIndex::users).tag("index", "booking-booker")
+                .register(meterRegistry);
+        Gauge.builder("shareit.index.entries", bookingsByOwner, BookingIndex::users).tag("index", "booking-owner")
+                .register(meterRegistry);
+        Gauge.builder("shareit.index.entries", itemSchedule, ItemSchedule::items).tag("index", "booking-schedule")
+                .register(meterRegistry);
+        this.bookerSelection = new SelectionMetrics(meterRegistry, "booker");
+        this.ownerSelection = new SelectionMetrics(meterRegistry, "owner");
     }
 
     @Override
     public BookingDto createBooking(BookingDto bookingDto, Long bookerId) {
         log.info("Creating booking for user {} on item {}", bookerId, bookingDto.getItemId());
 
-        User booker = userService.getUserEntityById(bookerId);
+        userService.getUserEntityById(bookerId); // Проверка существования пользователя
+
+        Booking booking = prepareBooking(bookingDto, bookerId);
+        try {
+            bookings.save(booking.id(), booking);
+        } catch (RuntimeException e) {
+            itemSchedule.release(booking.itemId(), BookingKey.of(booking));
+            throw e;
+        }
+        index(booking, BookingKey.of(booking));
+        touchLists(booking);
+        events.publish(booking);
+
+        log.debug("Created booking: ID={}, Item={}, Booker={}, Status={}, Start={}, End={}",
+                booking.id(), booking.itemId(), bookerId,
+                booking.status(), bookingDto.getStart(), bookingDto.getEnd());
+
+        return BookingMapper.toBookingDto(booking);
+    }
+
+    @Override
+    public List<BatchResult<BookingDto>> createBookings(List<BookingDto> bookingDtos, Long bookerId) {
+        log.info("Creating {} bookings in batch for user {}", bookingDtos.size(), bookerId);
+
+        userService.getUserEntityById(bookerId); // Проверка существования пользователя
+
+        List<BatchResult<BookingDto>> results = new ArrayList<>(bookingDtos.size());
+        Map<Long, Booking> created = new LinkedHashMap<>();
+        // id бронирования -> позиция его результата
+        Map<Long, Integer> positions = new HashMap<>();
+        for (int i = 0; i < bookingDtos.size(); i++) {
+            try {
+                dtoValidator.validate(bookingDtos.get(i));
+                Booking booking = prepareBooking(bookingDtos.get(i), bookerId);
+                created.put(booking.id(), booking);
+                positions.put(booking.id(), i);
+                results.add(BatchResult.of(i, HttpStatus.CREATED, BookingMapper.toBookingDto(booking)));
+            } catch (RuntimeException e) {
+                results.add(BatchResult.failed(i, e));
+            }
+        }
+
+        try {
+            bookings.putAll(created);
+        } catch (RuntimeException e) {
+            // Запись могла пройти частично: тех, кого нет в хранилище, переводим в ошибки и освобождаем интервалы
+            created.values().removeIf(booking -> {
+                if (bookings.containsKey(booking.id())) {
+                    return false;
+                }
+                itemSchedule.release(booking.itemId(), BookingKey.of(booking));
+                int index = positions.get(booking.id());
+                results.set(index, BatchResult.failed(index, e));
+                return true;
+            });
+        }
+        created.values().forEach(booking -> {
+            index(booking, BookingKey.of(booking));
+            touchLists(booking);
+            events.publish(booking);
+        });
+
+        log.debug("Created {} of {} bookings in batch for user {}", created.size(), bookingDtos.size(), bookerId);
+        return results;
+    }
+
+    // Проверяет бронирование и занимает интервал вещи; в хранилище не пишет
+    private Booking prepareBooking(BookingDto bookingDto, Long bookerId) {
+        if (bookingDto.getItemId() == null || bookingDto.getStart() == null || bookingDto.getEnd() == null) {
+            throw new ValidationException("Item, start and end are required");
+        }
         Item item = itemService.getItemEntityById(bookingDto.getItemId());
 
         // Проверка доступности вещи
@@ -47,29 +164,29 @@ public class BookingServiceImpl implements BookingService {
         }
 
         // Проверка, что владелец не бронирует свою вещь
-        if (item.getOwner().getId().equals(bookerId)) {
+        if (item.getOwnerId().equals(bookerId)) {
             log.warn("User {} tried to book their own item {}", bookerId, item.getId());
             throw new SelfBookingException("Owner cannot book their own item");
         }
 
-        // Проверка дат
-        if (bookingDto.getStart().isAfter(bookingDto.getEnd()) ||
-                bookingDto.getStart().isEqual(bookingDto.getEnd())) {
+        // Проверка дат (с точностью до миллисекунды, как они и хранятся)
+        long start = Booking.toMillis(bookingDto.getStart());
+        long end = Booking.toMillis(bookingDto.getEnd());
+        if (start >= end) {
             log.warn("Invalid booking dates: start={}, end={}",
                     bookingDto.getStart(), bookingDto.getEnd());
             throw new ValidationException("Invalid booking dates");
         }
 
-        Booking booking = BookingMapper.toBooking(bookingDto, item, booker);
-        booking.setId(idCounter.getAndIncrement());
-        booking.setStatus(BookingStatus.WAITING);
-        bookings.put(booking.getId(), booking);
-
-        log.debug("Created booking: ID={}, Item={}, Booker={}, Status={}, Start={}, End={}",
-                booking.getId(), item.getId(), bookerId,
-                booking.getStatus(), booking.getStart(), booking.getEnd());
+        // Проверка пересечения с уже занятыми интервалами вещи
+        BookingKey slot = itemSchedule.reserve(item.getId(), start, end, bookings::nextId);
+        if (slot == null) {
+            log.warn("Item {} is already booked between {} and {}",
+                    item.getId(), bookingDto.getStart(), bookingDto.getEnd());
+            throw new BookingConflictException("Item is already booked for the requested dates");
+        }
 
-        return BookingMapper.toBookingDto(booking);
+        return Booking.of(slot, item.getId(), item.getOwnerId(), bookerId, BookingStatus.WAITING);
     }
 
     @Override
@@ -77,29 +194,61 @@ public class BookingServiceImpl implements BookingService {
         log.info("{} booking ID: {} by owner ID: {}",
                 approved ? "Approving" : "Rejecting", bookingId, ownerId);
 
-        Booking booking = bookings.get(bookingId);
-        if (booking == null) {
+        Booking updatedBooking;
+        try {
+            updatedBooking = bookings.update(bookingId, booking -> patchBooking(bookingId, booking, ownerId, approved));
+        } finally {
+            // Подтверждение меняет lastBooking/nextBooking, которые видит только владелец
+            Booking current = bookings.get(bookingId);
+            if (current != null) {
+                jsonCache.invalidate(JsonCache.OWNED_ITEMS, current.itemId());
+            }
+        }
+
+        if (updatedBooking == null) {
             log.warn("Booking not found: ID={}", bookingId);
             throw new NotFoundException("Booking not found with id: " + bookingId);
         }
+        // Индексы и расписание меняются только после записи: откат вернул бы WAITING без интервала
+        BookingKey slot = BookingKey.of(updatedBooking);
+        if (approved) {
+            approvedBookings.add(itemSchedule.hold(updatedBooking.itemId(), slot),
+                    updatedBooking.itemId(), updatedBooking.ownerId());
+        } else {
+            itemSchedule.release(updatedBooking.itemId(), slot);
+        }
+        bookingsByBooker.changeStatus(updatedBooking.bookerId(), updatedBooking, BookingStatus.WAITING);
+        bookingsByOwner.changeStatus(ownerId, updatedBooking, BookingStatus.WAITING);
+        touchLists(updatedBooking);
+        events.publish(updatedBooking);
 
-        if (!booking.getItem().getOwner().getId().equals(ownerId)) {
+        return BookingMapper.toBookingDto(updatedBooking);
+    }
+
+    // Вызывается под замком бронирования; индексы не трогает
+    private Booking patchBooking(Long bookingId, Booking booking, Long ownerId, boolean approved) {
+        if (booking.ownerId() != ownerId) {
             log.warn("User {} is not owner of item {} for booking {}",
-                    ownerId, booking.getItem().getId(), bookingId);
+                    ownerId, booking.itemId(), bookingId);
             throw new ValidationException("User is not the owner of the item");
         }
 
-        if (booking.getStatus() != BookingStatus.WAITING) {
+        if (booking.status() != BookingStatus.WAITING) {
             log.warn("Booking {} is not waiting for approval. Current status: {}",
-                    bookingId, booking.getStatus());
+                    bookingId, booking.status());
             throw new ValidationException("Booking is not in waiting status");
         }
 
-        BookingStatus newStatus = approved ? BookingStatus.APPROVED : BookingStatus.REJECTED;
-        booking.setStatus(newStatus);
+        // Ожидающее бронирование уже занимает интервал, hold лишь проверяет, что он за ним
+        if (approved && itemSchedule.hold(booking.itemId(), BookingKey.of(booking)) == null) {
+            log.warn("Booking {} overlaps another booking of item {}",
+                    bookingId, booking.itemId());
+            throw new BookingConflictException("Item is already booked for the requested dates");
+        }
 
+        BookingStatus newStatus = approved ? BookingStatus.APPROVED : BookingStatus.REJECTED;
         log.debug("Booking {} set to status: {}", bookingId, newStatus);
-        return BookingMapper.toBookingDto(booking);
+        return booking.withStatus(newStatus);
     }
 
     @Override
@@ -112,8 +261,8 @@ public class BookingServiceImpl implements BookingService {
             throw new NotFoundException("Booking not found with id: " + bookingId);
         }
 
-        boolean isBooker = booking.getBooker().getId().equals(userId);
-        boolean isOwner = booking.getItem().getOwner().getId().equals(userId);
+        boolean isBooker = booking.bookerId() == userId;
+        boolean isOwner = booking.ownerId() == userId;
 
         if (!isBooker && !isOwner) {
             log.warn("User {} not authorized to view booking {}", userId, bookingId);
@@ -121,46 +270,182 @@ public class BookingServiceImpl implements BookingService {
         }
 
         log.debug("Fetched booking: ID={}, Item={}, Status={}",
-                bookingId, booking.getItem().getId(), booking.getStatus());
+                bookingId, booking.itemId(), booking.status());
 
         return BookingMapper.toBookingDto(booking);
     }
 
     @Override
-    public List<BookingDto> getAllBookingsForUser(Long userId, String state) {
-        log.debug("Fetching all bookings for user ID: {} with state: {}", userId, state);
+    public List<BatchResult<BookingDto>> approveBookings(List<Long> bookingIds, Long ownerId, boolean approved) {
+        log.info("{} {} bookings in batch by owner ID: {}",
+                approved ? "Approving" : "Rejecting", bookingIds.size(), ownerId);
+
+        List<BatchResult<BookingDto>> results = new ArrayList<>(bookingIds.size());
+        for (int i = 0; i < bookingIds.size(); i++) {
+            try {
+                results.add(BatchResult.of(i, HttpStatus.OK, approveBooking(bookingIds.get(i), ownerId, approved)));
+            } catch (RuntimeException e) {
+                results.add(BatchResult.failed(i, e));
+            }
+        }
+        return results;
+    }
 
-        userService.getUserById(userId); // Проверка существования пользователя
+    @Override
+    public List<BookingDto> getBookingsByIds(List<Long> bookingIds, Long userId) {
+        log.debug("Fetching {} bookings by ID for user ID: {}", bookingIds.size(), userId);
+
+        // Чужие бронирования пропускаются так же, как отсутствующие
+        return bookingIds.stream()
+                .map(bookings::get)
+                .filter(Objects::nonNull)
+                .filter(booking -> booking.bookerId() == userId || booking.ownerId() == userId)
+                .map(BookingMapper::toBookingDto)
+                .toList();
+    }
+
+    @Override
+    public Page<BookingDto> getAllBookingsForUser(Long userId, String state, PageRequest page) {
+        log.debug("Fetching all bookings for user ID: {} with state: {} ({})", userId, state, page);
 
-        List<Booking> userBookings = bookings.values().stream()
-                .filter(b -> b.getBooker().getId().equals(userId))
-                .sorted(Comparator.comparing(Booking::getStart).reversed())
-                .collect(Collectors.toList());
+        userService.getUserEntityById(userId); // Проверка существования пользователя
 
-        List<BookingDto> result = filterBookingsByState(userBookings, state);
-        log.debug("Found {} bookings for user {} with state {}",
-                result.size(), userId, state);
-        return result;
+        List<BookingDto> result = filterBookingsByState(bookingsByBooker, bookerSelection, userId, state, page)
+                .toList();
+        log.debug("Found {} bookings for user {} with state {}", result.size(), userId, state);
+        return Page.of(result, page, BookingServiceImpl::cursorOf);
     }
 
     @Override
-    public List<BookingDto> getAllBookingsForOwner(Long ownerId, String state) {
-        log.debug("Fetching all bookings for owner ID: {} with state: {}", ownerId, state);
+    public Page<BookingDto> getAllBookingsForOwner(Long ownerId, String state, PageRequest page) {
+        log.debug("Fetching all bookings for owner ID: {} with state: {} ({})", ownerId, state, page);
 
-        userService.getUserById(ownerId); // Проверка существования пользователя
+        userService.getUserEntityById(ownerId); // Проверка существования пользователя
 
-        List<Booking> ownerBookings = bookings.values().stream()
-                .filter(b -> b.getItem().getOwner().getId().equals(ownerId))
-                .sorted(Comparator.comparing(Booking::getStart).reversed())
-                .collect(Collectors.toList());
+        List<BookingDto> result = filterBookingsByState(bookingsByOwner, ownerSelection, ownerId, state, page)
+                .toList();
+        log.debug("Found {} bookings for owner {} with state {}", result.size(), ownerId, state);
+        return Page.of(result, page, BookingServiceImpl::cursorOf);
+    }
+
+    @Override
+    public String bookingsForUserETag(Long userId, String state) {
+        return bookingsETag(CollectionVersions.BOOKER_BOOKINGS, userId, state);
+    }
 
-        List<BookingDto> result = filterBookingsByState(ownerBookings, state);
-        log.debug("Found {} bookings for owner {} with state {}",
-                result.size(), ownerId, state);
-        return result;
+    @Override
+    public String bookingsForOwnerETag(Long ownerId, String state) {
+        return bookingsETag(CollectionVersions.OWNER_BOOKINGS, ownerId, state);
     }
 
-    private List<BookingDto> filterBookingsByState(List<Booking> bookings, String state) {
+    // CURRENT, PAST и FUTURE меняются с течением времени без записи, для них ETag нет
+    private String bookingsETag(String collection, Long userId, String state) {
+        BookingState bookingState;
+        try {
+            bookingState = BookingState.valueOf(state.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null; // Ошибку состояния вернёт построение списка
+        }
+        return switch (bookingState) {
+            case ALL, WAITING, REJECTED -> versions.etag(collection, userId);
+            case CURRENT, PAST, FUTURE -> null;
+        };
+    }
+
+    @Override
+    public Stream<BookingDto> streamBookingsForUser(Long userId, String state, PageRequest page) {
+        userService.getUserEntityById(userId); // Проверка существования пользователя
+        return filterBookingsByState(bookingsByBooker, bookerSelection, userId, state, page);
+    }
+
+    @Override
+    public Stream<BookingDto> streamBookingsForOwner(Long ownerId, String state, PageRequest page) {
+        userService.getUserEntityById(ownerId); // Проверка существования пользователя
+        return filterBookingsByState(bookingsByOwner, ownerSelection, ownerId, state, page);
+    }
+
+    @Override
+    public Stream<BookingDto> exportBookings() {
+        return bookings.values().stream().map(BookingMapper::toBookingDto);
+    }
+
+    @Override
+    public void restoreBooking(BookingDto bookingDto) {
+        if (bookingDto.getId() == null || bookingDto.getBookerId() == null || bookingDto.getStatus() == null
+                || bookingDto.getItemId() == null || bookingDto.getStart() == null || bookingDto.getEnd() == null) {
+            throw new ValidationException("Booking id, item, booker, status, start and end are required");
+        }
+        userService.getUserEntityById(bookingDto.getBookerId()); // Проверка существования пользователя
+        Item item = itemService.getItemEntityById(bookingDto.getItemId());
+
+        BookingKey slot = new BookingKey(Booking.toMillis(bookingDto.getStart()),
+                Booking.toMillis(bookingDto.getEnd()), bookingDto.getId());
+        Booking booking = Booking.of(slot, item.getId(), item.getOwnerId(), bookingDto.getBookerId(),
+                bookingDto.getStatus());
+        if (bookings.containsKey(booking.id())) {
+            throw new ValidationException("Booking already exists: " + booking.id());
+        }
+        boolean holdsSlot = booking.status() == BookingStatus.WAITING
+                || booking.status() == BookingStatus.APPROVED;
+        if (holdsSlot && itemSchedule.hold(booking.itemId(), slot) == null) {
+            throw new BookingConflictException("Item is already booked for the requested dates");
+        }
+        Booking existing;
+        try {
+            existing = bookings.putIfAbsent(booking.id(), booking);
+        } catch (RuntimeException e) {
+            if (holdsSlot) {
+                itemSchedule.release(booking.itemId(), slot);
+            }
+            throw e;
+        }
+        if (existing != null) {
+            // Интервал с тем же id мог занять только уже сохранённый двойник, его не трогаем
+            if (holdsSlot && !slot.equals(BookingKey.of(existing))) {
+                itemSchedule.release(booking.itemId(), slot);
+            }
+            throw new ValidationException("Booking already exists: " + booking.id());
+        }
+        bookings.advanceNextId(booking.id() + 1);
+        index(booking, slot);
+        touchLists(booking);
+    }
+
+    // Вызывается после записи: списки бронирований сторон и, для подтверждённых, вещи владельца
+    private void touchLists(Booking booking) {
+        versions.touch(CollectionVersions.BOOKER_BOOKINGS, booking.bookerId());
+        versions.touch(CollectionVersions.OWNER_BOOKINGS, booking.ownerId());
+        if (booking.status() == BookingStatus.APPROVED) {
+            versions.touch(CollectionVersions.OWNER_ITEMS, booking.ownerId());
+        }
+    }
+
+    // Перестроение индексов и расписания вещей после восстановления данных при старте
+    private void rebuildIndexes() {
+        bookings.values().forEach(booking -> {
+            BookingKey key = BookingKey.of(booking);
+            if (booking.status() == BookingStatus.WAITING || booking.status() == BookingStatus.APPROVED) {
+                BookingKey held = itemSchedule.hold(booking.itemId(), key);
+                key = held != null ? held : key;
+            }
+            index(booking, key);
+        });
+    }
+
+    // Один ключ на бронирование разделяют индексы обеих сторон и, для подтверждённых, ApprovedBookings
+    private void index(Booking booking, BookingKey key) {
+        bookingsByBooker.add(booking.bookerId(), key, booking.status());
+        bookingsByOwner.add(booking.ownerId(), key, booking.status());
+        if (booking.status() == BookingStatus.APPROVED) {
+            approvedBookings.add(key, booking.itemId(), booking.ownerId());
+        }
+    }
+
+    /**
+     * Ленивый поток бронирований; состояние проверяется сразу, до первого элемента.
+     */
+    private Stream<BookingDto> filterBookingsByState(BookingIndex index, SelectionMetrics metrics, Long userId,
+                                                     String state, PageRequest page) {
         BookingState bookingState;
         try {
             bookingState = BookingState.valueOf(state.toUpperCase());
@@ -169,36 +454,22 @@ public class BookingServiceImpl implements BookingService {
             throw new ValidationException("Unknown state: " + state);
         }
 
-        LocalDateTime now = LocalDateTime.now();
+        long now = Booking.toMillis(LocalDateTime.now());
         log.debug("Filtering bookings by state: {}", bookingState);
 
-        List<BookingDto> result = bookings.stream()
-                .filter(booking -> {
-                    switch (bookingState) {
-                        case ALL:
-                            return true;
-                        case CURRENT:
-                            return booking.getStart().isBefore(now) && booking.getEnd().isAfter(now);
-                        case PAST:
-                            return booking.getEnd().isBefore(now);
-                        case FUTURE:
-                            return booking.getStart().isAfter(now);
-                        case WAITING:
-                            return booking.getStatus() == BookingStatus.WAITING;
-                        case REJECTED:
-                            return booking.getStatus() == BookingStatus.REJECTED;
-                        default:
-                            return true;
-                    }
-                })
-                .map(BookingMapper::toBookingDto)
-                .toList();
-
-        log.debug("Filtered {} bookings for state {}", result.size(), state);
-        return result;
+        BookingKey after = page.after() != null ? BookingKey.after(page.after()) : null;
+        Counter scanned = metrics.scanned(bookingState);
+        Counter returned = metrics.returned(bookingState);
+        return index.select(userId, bookingState, now, after, scanned::increment)
+                .skip(page.from())
+                .limit(page.size())
+                .map(key -> bookings.get(key.id()))
+                .filter(Objects::nonNull)
+                .peek(booking -> returned.increment())
+                .map(BookingMapper::toBookingDto);
     }
 
-    private enum BookingState {
-        ALL, CURRENT, PAST, FUTURE, WAITING, REJECTED
+    private static Cursor cursorOf(BookingDto booking) {
+        return Cursor.of(booking.getStart(), booking.getId());
     }
 }
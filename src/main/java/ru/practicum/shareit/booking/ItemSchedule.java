@@ -0,0 +1,92 @@
+package ru.practicum.shareit.booking;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Занятые интервалы [start, end) каждой вещи: ожидающие и подтверждённые бронирования.
+ * Интервалы одной вещи не пересекаются, поэтому конфликт проверяется по двум соседям за O(log n).
+ * Запись идёт под замком вещи, чтение — без блокировок.
+ */
+class ItemSchedule {
+    private final Map<Long, Slots> byItem = new ConcurrentHashMap<>();
+
+    int items() {
+        return byItem.size();
+    }
+
+    /**
+     * Атомарно проверяет интервал и занимает его. Id бронирования выдаётся только при успехе.
+     *
+     * @return ключ нового бронирования или null, если интервал пересекается с уже занятым
+     */
+    BookingKey reserve(long itemId, long start, long end, LongSupplier idSupplier) {
+        Slots slots = byItem.computeIfAbsent(itemId, id -> new Slots());
+        slots.lock.lock();
+        try {
+            if (slots.overlaps(start, end)) {
+                return null;
+            }
+            BookingKey key = new BookingKey(start, end, idSupplier.getAsLong());
+            slots.byStart.put(start, key);
+            return key;
+        } finally {
+            slots.lock.unlock();
+        }
+    }
+
+    /**
+     * Занимает интервал уже существующего бронирования, если он ещё не занят им самим.
+     *
+     * @return ключ, которым занят интервал (уже лежавший в расписании или key), или null,
+     * если интервал пересекается с чужим бронированием
+     */
+    BookingKey hold(long itemId, BookingKey key) {
+        Slots slots = byItem.computeIfAbsent(itemId, id -> new Slots());
+        slots.lock.lock();
+        try {
+            BookingKey held = slots.byStart.get(key.start());
+            if (key.equals(held)) {
+                return held;
+            }
+            if (slots.overlaps(key.start(), key.end())) {
+                return null;
+            }
+            slots.byStart.put(key.start(), key);
+            return key;
+        } finally {
+            slots.lock.unlock();
+        }
+    }
+
+    void release(long itemId, BookingKey key) {
+        Slots slots = byItem.get(itemId);
+        if (slots == null) {
+            return;
+        }
+        slots.lock.lock();
+        try {
+            slots.byStart.remove(key.start(), key);
+        } finally {
+            slots.lock.unlock();
+        }
+    }
+
+    private static class Slots {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final NavigableMap<Long, BookingKey> byStart = new ConcurrentSkipListMap<>();
+
+        boolean overlaps(long start, long end) {
+            Map.Entry<Long, BookingKey> before = byStart.floorEntry(start);
+            if (before != null && before.getValue().end() > start) {
+                return true;
+            }
+            Map.Entry<Long, BookingKey> after = byStart.higherEntry(start);
+            return after != null && after.getValue().start() < end;
+        }
+    }
+}
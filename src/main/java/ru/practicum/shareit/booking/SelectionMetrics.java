@@ -0,0 +1,36 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Избирательность фильтра по состоянию для одного индекса (арендатора или владельца):
+ * сколько ключей индекса просмотрено и сколько бронирований отдано. Отношение returned/scanned
+ * близко к 1 для ALL/FUTURE/WAITING/REJECTED и показывает, во что обходятся CURRENT и PAST.
+ */
+class SelectionMetrics {
+    private final Map<BookingState, Counter> scanned = new EnumMap<>(BookingState.class);
+    private final Map<BookingState, Counter> returned = new EnumMap<>(BookingState.class);
+
+    SelectionMetrics(MeterRegistry meterRegistry, String role) {
+        for (BookingState state : BookingState.values()) {
+            scanned.put(state, Counter.builder("shareit.bookings.selection.scanned")
+                    .tag("role", role).tag("state", state.name())
+                    .register(meterRegistry));
+            returned.put(state, Counter.builder("shareit.bookings.selection.returned")
+                    .tag("role", role).tag("state", state.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    Counter scanned(BookingState state) {
+        return scanned.get(state);
+    }
+
+    Counter returned(BookingState state) {
+        return returned.get(state);
+    }
+}
@@ -0,0 +1,61 @@
+package ru.practicum.shareit.common;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import ru.practicum.shareit.exception.BookingConflictException;
+import ru.practicum.shareit.exception.DuplicateEmailException;
+import ru.practicum.shareit.exception.ForbiddenException;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.SelfBookingException;
+import ru.practicum.shareit.exception.UnavailableItemException;
+import ru.practicum.shareit.exception.ValidationException;
+
+/**
+ * Результат обработки одного элемента пачки: статус и тело либо ошибка,
+ * как если бы элемент пришёл отдельным запросом.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchResult<T>(int index, int status, T result, String error, String message) {
+    private static final Logger log = LoggerFactory.getLogger(BatchResult.class);
+
+    public static <T> BatchResult<T> of(int index, HttpStatus status, T result) {
+        return new BatchResult<>(index, status.value(), result, null, null);
+    }
+
+    /**
+     * Статусы совпадают с GlobalExceptionHandler; неизвестные исключения дают 500.
+     */
+    public static <T> BatchResult<T> failed(int index, RuntimeException ex) {
+        HttpStatus status = statusOf(ex);
+        String message = ex.getMessage();
+        if (status == HttpStatus.INTERNAL_SERVER_ERROR) {
+            log.error("Batch element {} failed", index, ex);
+            message = "An unexpected error occurred";
+        }
+        return new BatchResult<>(index, status.value(), null, status.getReasonPhrase(), message);
+    }
+
+    public boolean succeeded() {
+        return error == null;
+    }
+
+    private static HttpStatus statusOf(RuntimeException ex) {
+        if (ex instanceof ValidationException
+                || ex instanceof UnavailableItemException
+                || ex instanceof SelfBookingException) {
+            return HttpStatus.BAD_REQUEST;
+        }
+        if (ex instanceof NotFoundException) {
+            return HttpStatus.NOT_FOUND;
+        }
+        if (ex instanceof ForbiddenException) {
+            return HttpStatus.FORBIDDEN;
+        }
+        if (ex instanceof DuplicateEmailException || ex instanceof BookingConflictException) {
+            return HttpStatus.CONFLICT;
+        }
+        return HttpStatus.INTERNAL_SERVER_ERROR;
+    }
+}
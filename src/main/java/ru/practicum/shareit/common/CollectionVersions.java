@@ -0,0 +1,66 @@
+package ru.practicum.shareit.common;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Версии списков (вещи владельца, бронирования арендатора и т.п.) для ETag и условных GET.
+ * Каждое изменение списка ставит ему очередное значение общих монотонных часов, поэтому
+ * версия не повторяется и не убывает. Версии живут только в памяти: epoch в ETag
+ * отличает запуски приложения, чтобы ETag прошлого запуска не совпал случайно.
+ */
+@Component
+public class CollectionVersions {
+    public static final String OWNER_ITEMS = "owner-items";
+    public static final String BOOKER_BOOKINGS = "booker-bookings";
+    public static final String OWNER_BOOKINGS = "owner-bookings";
+    public static final String USER_REQUESTS = "user-requests";
+    // Общая лента запросов, id не используется
+    public static final String ALL_REQUESTS = "all-requests";
+
+    private static final List<String> PER_USER = List.of(OWNER_ITEMS, BOOKER_BOOKINGS, OWNER_BOOKINGS, USER_REQUESTS);
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong clock = new AtomicLong();
+    private final Map<Key, Long> versions = new ConcurrentHashMap<>();
+
+    /**
+     * Отмечает изменение списка. Вызывается после записи, которую список отражает.
+     */
+    public void touch(String collection, Long id) {
+        versions.merge(new Key(collection, id), clock.incrementAndGet(), Math::max);
+    }
+
+    /**
+     * Все списки пользователя: после его удаления они отвечают 404, а не 304.
+     */
+    public void touchUser(Long userId) {
+        for (String collection : PER_USER) {
+            touch(collection, userId);
+        }
+    }
+
+    /**
+     * ETag текущего состояния списка. Читается до построения списка, чтобы ETag не оказался новее данных.
+     * changesAt — момент (мс), когда ответ изменится без записи, например начнётся бронирование; 0, если такого нет.
+     */
+    public String etag(String collection, Long id, long changesAt) {
+        long version = versions.getOrDefault(new Key(collection, id), 0L);
+        StringBuilder etag = new StringBuilder("W/\"").append(epoch).append('-').append(Long.toString(version, 36));
+        if (changesAt != 0) {
+            etag.append('-').append(Long.toString(changesAt, 36));
+        }
+        return etag.append('"').toString();
+    }
+
+    public String etag(String collection, Long id) {
+        return etag(collection, id, 0);
+    }
+
+    private record Key(String collection, Long id) {
+    }
+}
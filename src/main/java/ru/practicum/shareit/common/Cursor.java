@@ -0,0 +1,58 @@
+package ru.practicum.shareit.common;
+
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Позиция в упорядоченном списке: ключ сортировки и id последнего отданного элемента.
+ * Клиенту передаётся как непрозрачная строка.
+ */
+public record Cursor(String sortKey, long id) {
+    private static final char SEPARATOR = '|';
+
+    public static Cursor of(long sortKey, long id) {
+        return new Cursor(Long.toString(sortKey), id);
+    }
+
+    public static Cursor of(LocalDateTime sortKey, long id) {
+        return new Cursor(sortKey.toString(), id);
+    }
+
+    public long sortKeyAsLong() {
+        try {
+            return Long.parseLong(sortKey);
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Invalid cursor");
+        }
+    }
+
+    public LocalDateTime sortKeyAsTime() {
+        try {
+            return LocalDateTime.parse(sortKey);
+        } catch (DateTimeParseException e) {
+            throw new ValidationException("Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        String raw = sortKey + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new ValidationException("Invalid cursor");
+            }
+            return new Cursor(raw.substring(0, separator), Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Invalid cursor");
+        }
+    }
+}
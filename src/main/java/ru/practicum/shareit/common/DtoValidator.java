@@ -0,0 +1,32 @@
+package ru.practicum.shareit.common;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.util.Comparator;
+import java.util.Set;
+
+/**
+ * Проверка аннотаций DTO для элементов пачки, где @Valid на контроллере не срабатывает.
+ */
+@Component
+public class DtoValidator {
+    private final Validator validator;
+
+    public DtoValidator(Validator validator) {
+        this.validator = validator;
+    }
+
+    public void validate(Object dto) {
+        Set<ConstraintViolation<Object>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            violations.stream()
+                    .min(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                    .ifPresent(violation -> {
+                        throw new ValidationException(violation.getMessage());
+                    });
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package ru.practicum.shareit.common;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Кэш уже сериализованных ответов GET /{id}: тело отдаётся готовыми байтами, без маппера и Jackson.
+ * Размер ограничен суммарным объёмом JSON, вытеснение — W-TinyLFU из Caffeine.
+ * Сервисы сбрасывают запись после изменения сущности. Загрузка идёт вне Caffeine (compute держит
+ * замок корзины и на время загрузки привязывает виртуальный поток к носителю), поэтому значение,
+ * прочитанное до изменения, отсекается счётчиком сбросов: если за время загрузки ключ сбрасывали,
+ * положенное значение убирается обратно.
+ * ETag — хэш тела, считается один раз при загрузке; на совпавший If-None-Match Spring отвечает 304.
+ */
+@Component
+public class JsonCache {
+    public static final String USERS = "users";
+    public static final String ITEMS = "items";
+    // Вещь глазами владельца: с lastBooking/nextBooking
+    public static final String OWNED_ITEMS = "owned-items";
+    private static final int INVALIDATION_STRIPES = 1024;
+
+    private final ObjectMapper objectMapper;
+    private final Cache<Key, Cached> cache;
+    private final boolean enabled;
+    // Счётчики сбросов по полосам ключей
+    private final AtomicLongArray invalidations = new AtomicLongArray(INVALIDATION_STRIPES);
+
+    public JsonCache(ObjectMapper objectMapper, JsonCacheProperties properties, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.enabled = properties.enabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.maxSize().toBytes())
+                .weigher((Key key, Cached cached) -> cached.json().length)
+                .expireAfter(new UntilStale())
+                .recordStats()
+                .build();
+        // Попадания, промахи, вытеснения и объём публикуются как cache.* с тегом cache=json
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "json");
+    }
+
+    /**
+     * Ответ из кэша; при промахе dto загружается и сериализуется.
+     * Исключения загрузки (например, NotFoundException) пробрасываются и не кэшируются.
+     */
+    public ResponseEntity<byte[]> get(String region, Long id, Supplier<?> loader) {
+        return get(region, id, loader, dto -> null);
+    }
+
+    /**
+     * То же, но запись живёт до момента staleAt(dto), после которого ответ меняется сам по себе
+     * (null — без срока).
+     */
+    public <T> ResponseEntity<byte[]> get(String region, Long id, Supplier<T> loader,
+                                          Function<T, LocalDateTime> staleAt) {
+        Cached cached = enabled ? cached(new Key(region, id), loader, staleAt) : load(loader, staleAt);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).eTag(cached.etag()).body(cached.json());
+    }
+
+    public void invalidate(String region, Long id) {
+        Key key = new Key(region, id);
+        invalidations.incrementAndGet(stripe(key));
+        cache.invalidate(key);
+    }
+
+    private <T> Cached cached(Key key, Supplier<T> loader, Function<T, LocalDateTime> staleAt) {
+        Cached cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        int stripe = stripe(key);
+        long seen = invalidations.get(stripe);
+        cached = load(loader, staleAt);
+        cache.put(key, cached);
+        // Сброс, начавшийся после этой проверки, сам уберёт положенное значение
+        if (invalidations.get(stripe) != seen) {
+            cache.asMap().remove(key, cached);
+        }
+        return cached;
+    }
+
+    private static int stripe(Key key) {
+        return (key.hashCode() & Integer.MAX_VALUE) % INVALIDATION_STRIPES;
+    }
+
+    private <T> Cached load(Supplier<T> loader, Function<T, LocalDateTime> staleAt) {
+        T dto = loader.get();
+        LocalDateTime until = staleAt.apply(dto);
+        long ttl = until != null
+                ? Math.max(0, Duration.between(LocalDateTime.now(), until).toNanos())
+                : Long.MAX_VALUE;
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(dto);
+            return new Cached(json, '"' + DigestUtils.md5DigestAsHex(json) + '"', ttl);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize " + dto.getClass().getSimpleName(), e);
+        }
+    }
+
+    private record Key(String region, Long id) {
+    }
+
+    private record Cached(byte[] json, String etag, long ttlNanos) {
+    }
+
+    private static class UntilStale implements Expiry<Key, Cached> {
+        @Override
+        public long expireAfterCreate(Key key, Cached cached, long currentTime) {
+            return cached.ttlNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(Key key, Cached cached, long currentTime, long currentDuration) {
+            return cached.ttlNanos();
+        }
+
+        @Override
+        public long expireAfterRead(Key key, Cached cached, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package ru.practicum.shareit.common;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.stream.Stream;
+
+/**
+ * Включает @Timed на бинах: сервисы помечены им целиком, таймер получает теги class и method.
+ * Методы, возвращающие поток, пропускаются: они только строят его, а обход идёт позже,
+ * при записи ответа, и измеряется в {@link NdjsonWriter}.
+ */
+@Configuration
+public class MetricsConfig {
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry, MetricsConfig::returnsStream);
+    }
+
+    private static boolean returnsStream(ProceedingJoinPoint joinPoint) {
+        Class<?> returnType = ((MethodSignature) joinPoint.getSignature()).getReturnType();
+        return Stream.class.isAssignableFrom(returnType) || StreamPage.class.isAssignableFrom(returnType);
+    }
+}
@@ -0,0 +1,73 @@
+package ru.practicum.shareit.common;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Потоковый ответ в формате NDJSON: элементы пишутся в ответ по мере выхода из потока,
+ * без промежуточного списка. Курсор на следующую страницу передаётся, только если он известен
+ * до обхода потока ({@link StreamPage}): заголовки уходят раньше последнего элемента.
+ * Обход вместе с записью измеряется таймером shareit.stream с тегом stream — именем потока.
+ */
+@Component
+public class NdjsonWriter {
+    public static final String NDJSON = "application/x-ndjson";
+    private static final MediaType NDJSON_TYPE = MediaType.parseMediaType(NDJSON);
+    private static final String TIMER = "shareit.stream";
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter writer;
+    private final MeterRegistry meterRegistry;
+
+    public NdjsonWriter(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        // Сбрасываем буфер не после каждого элемента, а по его заполнению
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    public <T> ResponseEntity<StreamingResponseBody> stream(String name, StreamPage<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(NDJSON_TYPE);
+        if (page.next() != null) {
+            response.header(Page.NEXT_CURSOR_HEADER, page.next().encode());
+        }
+        return response.body(body(name, page.content()));
+    }
+
+    public <T> ResponseEntity<StreamingResponseBody> stream(String name, Stream<T> elements) {
+        return ResponseEntity.ok().contentType(NDJSON_TYPE).body(body(name, elements));
+    }
+
+    private <T> StreamingResponseBody body(String name, Stream<T> elements) {
+        return output -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String exception = "none";
+            try (elements; JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                Iterator<T> iterator = elements.iterator();
+                while (iterator.hasNext()) {
+                    writer.writeValue(generator, iterator.next());
+                    generator.writeRaw('\n');
+                }
+            } catch (IOException | RuntimeException e) {
+                exception = e.getClass().getSimpleName();
+                throw e;
+            } finally {
+                sample.stop(meterRegistry.timer(TIMER, "stream", name, "exception", exception));
+            }
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package ru.practicum.shareit.common;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Страница результата и курсор на следующую, если текущая заполнена целиком.
+ */
+public record Page<T>(List<T> content, Cursor next) {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    public static <T> Page<T> of(List<T> content, PageRequest request, Function<T, Cursor> cursorOf) {
+        Cursor next = !content.isEmpty() && content.size() >= request.size()
+                ? cursorOf.apply(content.get(content.size() - 1))
+                : null;
+        return new Page<>(content, next);
+    }
+
+    public ResponseEntity<List<T>> toResponseEntity() {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (next != null) {
+            response.header(NEXT_CURSOR_HEADER, next.encode());
+        }
+        return response.body(content);
+    }
+}
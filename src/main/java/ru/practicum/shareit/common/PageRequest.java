@@ -0,0 +1,33 @@
+package ru.practicum.shareit.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.practicum.shareit.exception.ValidationException;
+
+/**
+ * Параметры страницы: смещение from либо курсор after, и размер страницы.
+ */
+public record PageRequest(int from, int size, Cursor after) {
+    private static final Logger log = LoggerFactory.getLogger(PageRequest.class);
+
+    public static PageRequest of(int from, Integer size, String cursor) {
+        int pageSize = size != null ? size : Integer.MAX_VALUE;
+
+        if (from < 0) {
+            log.warn("Invalid 'from' parameter: {}", from);
+            throw new ValidationException("'from' must be positive or zero");
+        }
+
+        if (pageSize <= 0) {
+            log.warn("Invalid 'size' parameter: {}", pageSize);
+            throw new ValidationException("'size' must be positive");
+        }
+
+        if (cursor != null && from != 0) {
+            log.warn("Both 'from'={} and 'cursor' are set", from);
+            throw new ValidationException("'from' cannot be combined with 'cursor'");
+        }
+
+        return new PageRequest(from, pageSize, cursor != null ? Cursor.decode(cursor) : null);
+    }
+}
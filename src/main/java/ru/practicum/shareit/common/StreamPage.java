@@ -0,0 +1,9 @@
+package ru.practicum.shareit.common;
+
+import java.util.stream.Stream;
+
+/**
+ * Страница, элементы которой отдаются потоком, а курсор на следующую известен до обхода потока.
+ */
+public record StreamPage<T>(Stream<T> content, Cursor next) {
+}
@@ -3,14 +3,13 @@ package ru.practicum.shareit.item;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
-import ru.practicum.shareit.request.ItemRequest;
-import ru.practicum.shareit.user.User;
 
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @ToString
+@With
 public class Item {
     private Long id;
 
@@ -23,8 +22,9 @@ public class Item {
     @NotNull(message = "Available status is required")
     private Boolean available;
 
+    // Владелец и запрос хранятся идентификаторами, сами объекты живут в своих сервисах
     //@NotNull(message = "Owner is required")
-    private User owner;
+    private Long ownerId;
 
-    private ItemRequest request;
+    private Long requestId;
 }
@@ -0,0 +1,32 @@
+package ru.practicum.shareit.item;
+
+import ru.practicum.shareit.storage.Codecs;
+import ru.practicum.shareit.storage.EntityCodec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+class ItemCodec implements EntityCodec<Item> {
+    @Override
+    public void write(Item item, DataOutput out) throws IOException {
+        Codecs.writeLong(out, item.getId());
+        Codecs.writeString(out, item.getName());
+        Codecs.writeString(out, item.getDescription());
+        Codecs.writeBoolean(out, item.getAvailable());
+        Codecs.writeLong(out, item.getOwnerId());
+        Codecs.writeLong(out, item.getRequestId());
+    }
+
+    @Override
+    public Item read(DataInput in) throws IOException {
+        Item item = new Item();
+        item.setId(Codecs.readLong(in));
+        item.setName(Codecs.readString(in));
+        item.setDescription(Codecs.readString(in));
+        item.setAvailable(Codecs.readBoolean(in));
+        item.setOwnerId(Codecs.readLong(in));
+        item.setRequestId(Codecs.readLong(in));
+        return item;
+    }
+}
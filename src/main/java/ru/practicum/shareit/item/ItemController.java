@@ -4,7 +4,15 @@ import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.common.BatchResult;
+import ru.practicum.shareit.common.JsonCache;
+import ru.practicum.shareit.common.NdjsonWriter;
+import ru.practicum.shareit.common.Page;
+import ru.practicum.shareit.common.PageRequest;
 import ru.practicum.shareit.exception.ForbiddenException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
@@ -16,9 +24,13 @@ import java.util.List;
 public class ItemController {
     private static final Logger log = LoggerFactory.getLogger(ItemController.class);
     private final ItemService itemService;
+    private final NdjsonWriter ndjsonWriter;
+    private final JsonCache jsonCache;
 
-    public ItemController(ItemService itemService) {
+    public ItemController(ItemService itemService, NdjsonWriter ndjsonWriter, JsonCache jsonCache) {
         this.itemService = itemService;
+        this.ndjsonWriter = ndjsonWriter;
+        this.jsonCache = jsonCache;
     }
 
     @PostMapping
@@ -35,6 +47,24 @@ public class ItemController {
         return createdItem;
     }
 
+    @PostMapping("/batch")
+    public List<BatchResult<ItemDto>> addItems(
+            @RequestBody List<ItemDto> itemDtos,
+            @RequestHeader("X-Sharer-User-Id") Long userId
+    ) {
+        log.info("POST /items/batch - User {} adding {} items", userId, itemDtos.size());
+        return itemService.addItems(itemDtos, userId);
+    }
+
+    @PatchMapping("/batch")
+    public List<BatchResult<ItemDto>> updateItems(
+            @RequestBody List<ItemDto> itemDtos,
+            @RequestHeader("X-Sharer-User-Id") Long userId
+    ) {
+        log.info("PATCH /items/batch - User {} updating {} items", userId, itemDtos.size());
+        return itemService.updateItems(itemDtos, userId);
+    }
+
     @PatchMapping("/{itemId}")
     public ItemDto updateItem(
             @PathVariable Long itemId,
@@ -48,31 +78,80 @@ public class ItemController {
     }
 
     @GetMapping("/{itemId}")
-    public ItemDto getItemById(@PathVariable Long itemId) {
-        log.info("GET /items/{} - Fetching item", itemId);
-        ItemDto item = itemService.getItemById(itemId);
-        log.debug("Fetched item: ID={}, Name={}", itemId, item.getName());
-        return item;
+    public ResponseEntity<byte[]> getItemById(
+            @PathVariable Long itemId,
+            @RequestHeader(value = "X-Sharer-User-Id", required = false) Long userId
+    ) {
+        log.info("GET /items/{} - Fetching item for user {}", itemId, userId);
+        if (itemService.isOwnedBy(itemId, userId)) {
+            // Ответ владельцу устаревает сам, когда начинается nextBooking
+            return jsonCache.get(JsonCache.OWNED_ITEMS, itemId, () -> itemService.getItemById(itemId, userId),
+                    item -> item.getNextBooking() != null ? item.getNextBooking().getStart() : null);
+        }
+        return jsonCache.get(JsonCache.ITEMS, itemId, () -> itemService.getItemById(itemId, null));
     }
 
     @GetMapping
-    public List<ItemDto> getAllItemsByOwner(
-            @RequestHeader("X-Sharer-User-Id") Long userId
+    public ResponseEntity<List<ItemDto>> getAllItemsByOwner(
+            @RequestHeader("X-Sharer-User-Id") Long userId,
+            @RequestParam(defaultValue = "0") int from,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) List<Long> ids,
+            WebRequest request
+    ) {
+        if (ids != null) {
+            log.info("GET /items?ids= - Fetching {} items by ID for user {}", ids.size(), userId);
+            return ResponseEntity.ok(itemService.getItemsByIds(ids, userId));
+        }
+        log.info("GET /items?from={}&size={}&cursor={} - Fetching all items for owner {}", from, size, cursor, userId);
+        // ETag берётся до построения списка: запись между ними даст лишний 200, но не устаревший 304.
+        // checkNotModified сам ставит заголовок ETag и при совпадении отвечает 304 без тела
+        if (request.checkNotModified(itemService.itemsByOwnerETag(userId))) {
+            return null;
+        }
+        Page<ItemDto> items = itemService.getAllItemsByOwner(userId, PageRequest.of(from, size, cursor));
+        log.debug("Fetched {} items for owner {}", items.content().size(), userId);
+        return items.toResponseEntity();
+    }
+
+    @GetMapping(produces = NdjsonWriter.NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamItemsByOwner(
+            @RequestHeader("X-Sharer-User-Id") Long userId,
+            @RequestParam(defaultValue = "0") int from,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor
     ) {
-        log.info("GET /items - Fetching all items for owner {}", userId);
-        List<ItemDto> items = itemService.getAllItemsByOwner(userId);
-        log.debug("Fetched {} items for owner {}", items.size(), userId);
-        return items;
+        log.info("GET /items?from={}&size={}&cursor={} (ndjson) - Streaming items for owner {}",
+                from, size, cursor, userId);
+        return ndjsonWriter.stream("items-by-owner",
+                itemService.streamItemsByOwner(userId, PageRequest.of(from, size, cursor)));
     }
 
     @GetMapping("/search")
-    public List<ItemDto> searchItems(
-            @RequestParam String text
+    public ResponseEntity<List<ItemDto>> searchItems(
+            @RequestParam String text,
+            @RequestParam(defaultValue = "0") int from,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor
+    ) {
+        log.info("GET /items/search?text={}&from={}&size={}&cursor={} - Searching items", text, from, size, cursor);
+        Page<ItemDto> result = itemService.searchItems(text, PageRequest.of(from, size, cursor));
+        log.debug("Found {} items for search: '{}'", result.content().size(), text);
+        return result.toResponseEntity();
+    }
+
+    @GetMapping(value = "/search", produces = NdjsonWriter.NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamSearchItems(
+            @RequestParam String text,
+            @RequestParam(defaultValue = "0") int from,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor
     ) {
-        log.info("GET /items/search?text={} - Searching items", text);
-        List<ItemDto> result = itemService.searchItems(text);
-        log.debug("Found {} items for search: '{}'", result.size(), text);
-        return result;
+        log.info("GET /items/search?text={}&from={}&size={}&cursor={} (ndjson) - Streaming search results",
+                text, from, size, cursor);
+        return ndjsonWriter.stream("items-search",
+                itemService.streamSearchItems(text, PageRequest.of(from, size, cursor)));
     }
 
     @ExceptionHandler({NotFoundException.class})
@@ -6,6 +6,7 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import ru.practicum.shareit.booking.BookingShortDto;
 
 @Getter
 @Setter
@@ -27,4 +28,13 @@ public class ItemDto {
     private Long ownerId;
 
     private Long requestId;
+
+    // Заполняются только для владельца вещи
+    private BookingShortDto lastBooking;
+
+    private BookingShortDto nextBooking;
+
+    public ItemDto(Long id, String name, String description, Boolean available, Long ownerId, Long requestId) {
+        this(id, name, description, available, ownerId, requestId, null, null);
+    }
 }
@@ -0,0 +1,35 @@
+package ru.practicum.shareit.item;
+
+import ru.practicum.shareit.storage.RecordLayout;
+
+// id, name, description, available, ownerId, requestId
+class ItemLayout implements RecordLayout<Item> {
+    private static final int SIZE = LONG + STRING + STRING + BOOLEAN + LONG + LONG;
+
+    @Override
+    public int size() {
+        return SIZE;
+    }
+
+    @Override
+    public void write(Item item, Writer out) {
+        out.writeNullableLong(item.getId());
+        out.writeString(item.getName());
+        out.writeString(item.getDescription());
+        out.writeBoolean(item.getAvailable());
+        out.writeNullableLong(item.getOwnerId());
+        out.writeNullableLong(item.getRequestId());
+    }
+
+    @Override
+    public Item read(Reader in) {
+        Item item = new Item();
+        item.setId(in.readNullableLong());
+        item.setName(in.readString());
+        item.setDescription(in.readString());
+        item.setAvailable(in.readBoolean());
+        item.setOwnerId(in.readNullableLong());
+        item.setRequestId(in.readNullableLong());
+        return item;
+    }
+}
@@ -1,8 +1,5 @@
 package ru.practicum.shareit.item;
 
-import ru.practicum.shareit.request.ItemRequest;
-import ru.practicum.shareit.user.User;
-
 public class ItemMapper {
     public static ItemDto toItemDto(Item item) {
         return new ItemDto(
@@ -10,19 +7,19 @@ public class ItemMapper {
                 item.getName(),
                 item.getDescription(),
                 item.getAvailable(),
-                item.getOwner().getId(),
-                item.getRequest() != null ? item.getRequest().getId() : null
+                item.getOwnerId(),
+                item.getRequestId()
         );
     }
 
-    public static Item toItem(ItemDto itemDto, User owner, ItemRequest request) {
+    public static Item toItem(ItemDto itemDto, Long ownerId) {
         Item item = new Item();
         item.setId(itemDto.getId());
         item.setName(itemDto.getName());
         item.setDescription(itemDto.getDescription());
         item.setAvailable(itemDto.getAvailable());
-        item.setOwner(owner);
-        item.setRequest(request);
+        item.setOwnerId(ownerId);
+        item.setRequestId(itemDto.getRequestId());
         return item;
     }
 }
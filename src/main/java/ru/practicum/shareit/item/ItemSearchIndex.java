@@ -0,0 +1,239 @@
+package ru.practicum.shareit.item;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Инвертированный индекс доступных вещей по n-граммам (длиной 1..3) названия и описания.
+ * Запрос длиной до трёх символов сам является n-граммой и отвечается одним списком,
+ * более длинный запрос сводится к пересечению списков его триграмм с проверкой contains.
+ * Текст вещей индекс не хранит: совпадение проверяется по вещи из хранилища, а прежний текст
+ * при обновлении передаёт вызывающий. Методы index/update для одной вещи должны вызываться
+ * под замком этой вещи.
+ * Списки пересекаются перескоками (ceiling) от самого короткого; работа одного запроса
+ * ограничена MAX_STEPS шагами, после чего возвращается позиция, с которой поиск продолжится.
+ */
+class ItemSearchIndex {
+    private static final int MAX_GRAM = 3;
+    static final int MAX_STEPS = 10_000;
+
+    private final Map<String, Posting> postings = new ConcurrentHashMap<>();
+    private final Function<Long, Item> items;
+    private final AtomicInteger documents = new AtomicInteger();
+
+    ItemSearchIndex(Function<Long, Item> items) {
+        this.items = items;
+    }
+
+    /**
+     * Индексируемый текст вещи или null, если вещи нет или она в поиск не попадает.
+     */
+    static IndexedText textOf(Item item) {
+        return item != null && Boolean.TRUE.equals(item.getAvailable())
+                ? new IndexedText(lower(item.getName()), lower(item.getDescription()))
+                : null;
+    }
+
+    /**
+     * Индексирует вещь, которой в индексе ещё нет.
+     */
+    void index(Item item) {
+        update(item.getId(), null, item);
+    }
+
+    void update(Long itemId, IndexedText previous, Item item) {
+        apply(itemId, previous, textOf(item));
+    }
+
+    /**
+     * Убирает вещь, проиндексированную через {@link #index}, если записать её так и не удалось.
+     */
+    void remove(Item item) {
+        apply(item.getId(), textOf(item), null);
+    }
+
+    private void apply(Long itemId, IndexedText previous, IndexedText current) {
+        if (Objects.equals(current, previous)) {
+            return;
+        }
+
+        Set<String> oldGrams = previous != null ? previous.grams() : Collections.emptySet();
+        Set<String> newGrams = current != null ? current.grams() : Collections.emptySet();
+        for (String gram : newGrams) {
+            if (!oldGrams.contains(gram)) {
+                addPosting(gram, itemId);
+            }
+        }
+        for (String gram : oldGrams) {
+            if (!newGrams.contains(gram)) {
+                removePosting(gram, itemId);
+            }
+        }
+        if (previous == null) {
+            documents.incrementAndGet();
+        } else if (current == null) {
+            documents.decrementAndGet();
+        }
+    }
+
+    int grams() {
+        return postings.size();
+    }
+
+    int documents() {
+        return documents.get();
+    }
+
+    /**
+     * Id вещей по возрастанию после afterId, начиная с совпадения номер from. Если страница не набрана
+     * за MAX_STEPS шагов, в результате есть resumeAfter — id, после которого нужно продолжить,
+     * и resumeSkip — сколько совпадений после него ещё пропустить.
+     */
+    Result search(String text, Long afterId, int from, int size) {
+        String query = text.toLowerCase();
+        List<Posting> lists = new ArrayList<>();
+        for (String gram : queryGrams(query)) {
+            Posting list = postings.get(gram);
+            if (list == null) {
+                return new Result(Collections.emptyList(), null, 0);
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size.get()));
+
+        boolean verify = query.length() > MAX_GRAM;
+        NavigableSet<Long> driver = lists.get(0).ids;
+        List<Long> result = new ArrayList<>(Math.min(size, 64));
+        int skipped = 0;
+        Long candidate = driver.ceiling(afterId != null ? afterId + 1 : Long.MIN_VALUE);
+        for (int steps = 0; candidate != null; steps++) {
+            if (steps >= MAX_STEPS) {
+                return new Result(result, candidate - 1, from - skipped);
+            }
+            Long aligned = align(lists, candidate);
+            if (aligned == null) {
+                break;
+            }
+            if (!aligned.equals(candidate)) {
+                candidate = driver.ceiling(aligned);
+                continue;
+            }
+            if (!verify || matches(candidate, query)) {
+                if (skipped < from) {
+                    skipped++;
+                } else {
+                    result.add(candidate);
+                    if (result.size() >= size) {
+                        break;
+                    }
+                }
+            }
+            candidate = driver.higher(candidate);
+        }
+        return new Result(result, null, 0);
+    }
+
+    // Наибольший из ceiling(candidate) по остальным спискам: равен candidate, только если он есть во всех
+    private static Long align(List<Posting> lists, Long candidate) {
+        Long aligned = candidate;
+        for (int i = 1; i < lists.size(); i++) {
+            Long next = lists.get(i).ids.ceiling(aligned);
+            if (next == null) {
+                return null;
+            }
+            aligned = Math.max(aligned, next);
+        }
+        return aligned;
+    }
+
+    // Вещь читается из хранилища; для хранилища вне кучи это временная копия, а не постоянная
+    private boolean matches(Long itemId, String query) {
+        Item item = items.apply(itemId);
+        return item != null && Boolean.TRUE.equals(item.getAvailable())
+                && (containsIgnoreCase(item.getName(), query) || containsIgnoreCase(item.getDescription(), query));
+    }
+
+    private static boolean containsIgnoreCase(String text, String query) {
+        if (text == null) {
+            return false;
+        }
+        for (int i = 0; i + query.length() <= text.length(); i++) {
+            if (text.regionMatches(true, i, query, 0, query.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addPosting(String gram, Long itemId) {
+        postings.compute(gram, (key, list) -> {
+            Posting target = list != null ? list : new Posting();
+            if (target.ids.add(itemId)) {
+                target.size.incrementAndGet();
+            }
+            return target;
+        });
+    }
+
+    private void removePosting(String gram, Long itemId) {
+        postings.computeIfPresent(gram, (key, list) -> {
+            if (list.ids.remove(itemId)) {
+                list.size.decrementAndGet();
+            }
+            return list.ids.isEmpty() ? null : list;
+        });
+    }
+
+    private static Set<String> queryGrams(String query) {
+        if (query.length() <= MAX_GRAM) {
+            return Set.of(query);
+        }
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + MAX_GRAM <= query.length(); i++) {
+            grams.add(query.substring(i, i + MAX_GRAM));
+        }
+        return grams;
+    }
+
+    private static String lower(String text) {
+        return text != null ? text.toLowerCase() : "";
+    }
+
+    record IndexedText(String name, String description) {
+        Set<String> grams() {
+            Set<String> grams = new HashSet<>();
+            collectGrams(name, grams);
+            collectGrams(description, grams);
+            return grams;
+        }
+
+        private static void collectGrams(String text, Set<String> grams) {
+            for (int i = 0; i < text.length(); i++) {
+                for (int len = 1; len <= MAX_GRAM && i + len <= text.length(); len++) {
+                    grams.add(text.substring(i, i + len));
+                }
+            }
+        }
+    }
+
+    record Result(List<Long> ids, Long resumeAfter, int resumeSkip) {
+    }
+
+    // Размер хранится отдельно: size() у ConcurrentSkipListSet обходит весь список
+    private static final class Posting {
+        private final NavigableSet<Long> ids = new ConcurrentSkipListSet<>();
+        private final AtomicInteger size = new AtomicInteger();
+    }
+}
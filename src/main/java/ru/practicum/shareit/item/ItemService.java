@@ -1,17 +1,53 @@
 package ru.practicum.shareit.item;
 
+import ru.practicum.shareit.common.BatchResult;
+import ru.practicum.shareit.common.Page;
+import ru.practicum.shareit.common.PageRequest;
+import ru.practicum.shareit.common.StreamPage;
+
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface ItemService {
     ItemDto addItem(ItemDto itemDto, Long ownerId);
 
     ItemDto updateItem(Long itemId, ItemDto itemDto, Long ownerId);
 
-    ItemDto getItemById(Long itemId);
+    List<BatchResult<ItemDto>> addItems(List<ItemDto> itemDtos, Long ownerId);
+
+    List<BatchResult<ItemDto>> updateItems(List<ItemDto> itemDtos, Long ownerId);
+
+    ItemDto getItemById(Long itemId, Long userId);
+
+    boolean isOwnedBy(Long itemId, Long userId);
+
+    Page<ItemDto> getAllItemsByOwner(Long ownerId, PageRequest page);
 
-    List<ItemDto> getAllItemsByOwner(Long ownerId);
+    /**
+     * ETag списка вещей владельца; читается до построения списка.
+     */
+    String itemsByOwnerETag(Long ownerId);
 
-    List<ItemDto> searchItems(String text);
+    /**
+     * То же, что getAllItemsByOwner, но ленивым потоком и без курсора на следующую страницу.
+     */
+    Stream<ItemDto> streamItemsByOwner(Long ownerId, PageRequest page);
+
+    List<ItemDto> getItemsByIds(List<Long> itemIds, Long userId);
+
+    Page<ItemDto> searchItems(String text, PageRequest page);
+
+    /**
+     * Результат поиска потоком. Поиск набирает id до вывода, поэтому курсор продолжения известен заранее.
+     */
+    StreamPage<ItemDto> streamSearchItems(String text, PageRequest page);
 
     Item getItemEntityById(Long itemId);
+
+    Stream<ItemDto> exportItems();
+
+    /**
+     * Сохраняет вещь с уже выданным id (импорт данных).
+     */
+    void restoreItem(ItemDto itemDto);
 }
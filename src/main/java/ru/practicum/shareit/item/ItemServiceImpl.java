@@ -1,53 +1,104 @@
 package ru.practicum.shareit.item;
 
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import ru.practicum.shareit.booking.ApprovedBookings;
+import ru.practicum.shareit.common.BatchResult;
+import ru.practicum.shareit.common.CollectionVersions;
+import ru.practicum.shareit.common.Cursor;
+import ru.practicum.shareit.common.DtoValidator;
+import ru.practicum.shareit.common.JsonCache;
+import ru.practicum.shareit.common.Page;
+import ru.practicum.shareit.common.PageRequest;
+import ru.practicum.shareit.common.StreamPage;
 import ru.practicum.shareit.exception.NotFoundException;
-import ru.practicum.shareit.request.ItemRequest;
-import ru.practicum.shareit.request.ItemRequestDto;
-import ru.practicum.shareit.request.ItemRequestMapper;
+import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.request.ItemRequestService;
-import ru.practicum.shareit.user.User;
-import ru.practicum.shareit.user.UserMapper;
+import ru.practicum.shareit.storage.EntityStorage;
+import ru.practicum.shareit.storage.EntityStorageFactory;
 import ru.practicum.shareit.user.UserService;
 
-import java.util.Collections;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
 
+@Timed(value = "shareit.service", histogram = true)
 @Service
 public class ItemServiceImpl implements ItemService {
     private static final Logger log = LoggerFactory.getLogger(ItemServiceImpl.class);
-    private final Map<Long, Item> items = new HashMap<>();
-    private final AtomicLong idCounter = new AtomicLong(1);
+    private final EntityStorage<Item> items;
+    // Индекс владелец -> id его вещей в порядке возрастания id
+    private final Map<Long, NavigableSet<Long>> itemsByOwner = new ConcurrentHashMap<>();
+    private final ItemSearchIndex searchIndex;
     private final UserService userService;
     private final ItemRequestService itemRequestService;
+    private final ApprovedBookings approvedBookings;
+    private final DtoValidator dtoValidator;
+    private final JsonCache jsonCache;
+    private final CollectionVersions versions;
+    // Сколько вещей отдано на один поисковый запрос (не больше size)
+    private final DistributionSummary searchResults;
 
-    public ItemServiceImpl(UserService userService, ItemRequestService itemRequestService) {
+    public ItemServiceImpl(UserService userService, ItemRequestService itemRequestService,
+                           ApprovedBookings approvedBookings, DtoValidator dtoValidator, JsonCache jsonCache,
+                           CollectionVersions versions, EntityStorageFactory storageFactory,
+                           MeterRegistry meterRegistry) {
         this.userService = userService;
         this.itemRequestService = itemRequestService;
+        this.approvedBookings = approvedBookings;
+        this.dtoValidator = dtoValidator;
+        this.jsonCache = jsonCache;
+        this.versions = versions;
+        this.items = storageFactory.create("items", new ItemCodec(), new ItemLayout(), this::rebuildIndexes);
+        this.searchIndex = new ItemSearchIndex(items::get);
+
+        Gauge.builder("shareit.entities", items, EntityStorage::size).tag("type", "item")
+                .register(meterRegistry);
+        Gauge.builder("shareit.index.entries", itemsByOwner, Map::size).tag("index", "item-owner")
+                .register(meterRegistry);
+        Gauge.builder("shareit.index.entries", searchIndex, ItemSearchIndex::grams).tag("index", "item-search-grams")
+                .register(meterRegistry);
+        Gauge.builder("shareit.index.entries", searchIndex, ItemSearchIndex::documents)
+                .tag("index", "item-search-documents")
+                .register(meterRegistry);
+        this.searchResults = DistributionSummary.builder("shareit.items.search.results")
+                .baseUnit("items")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
     @Override
     public ItemDto addItem(ItemDto itemDto, Long ownerId) {
         log.info("Adding new item '{}' for owner ID: {}", itemDto.getName(), ownerId);
 
-        User owner = UserMapper.toUser(userService.getUserById(ownerId));
-        ItemRequest request = null;
+        userService.getUserEntityById(ownerId); // Проверка существования пользователя
 
-        if (itemDto.getRequestId() != null) {
-            log.debug("Item has request ID: {}", itemDto.getRequestId());
-            ItemRequestDto requestDto = itemRequestService.getRequestById(itemDto.getRequestId());
-            User requestor = UserMapper.toUser(userService.getUserById(requestDto.getRequestorId()));
-            request = ItemRequestMapper.toItemRequest(requestDto, requestor);
+        Item item = prepareItem(itemDto, ownerId);
+        // Как и в addItems, индексируем до записи: id новый, изменить вещь до put никто не может
+        searchIndex.index(item);
+        try {
+            items.save(item.getId(), item);
+        } catch (RuntimeException e) {
+            searchIndex.remove(item);
+            throw e;
         }
-
-        Item item = ItemMapper.toItem(itemDto, owner, request);
-        item.setId(idCounter.getAndIncrement());
-        items.put(item.getId(), item);
+        itemsByOwner.computeIfAbsent(ownerId, id -> new ConcurrentSkipListSet<>()).add(item.getId());
+        versions.touch(CollectionVersions.OWNER_ITEMS, ownerId);
+        itemRequestService.matchItem(item);
 
         log.debug("Added item: ID={}, Name={}, Owner={}, Request={}",
                 item.getId(), item.getName(), ownerId, itemDto.getRequestId());
@@ -55,17 +106,110 @@ public class ItemServiceImpl implements ItemService {
         return ItemMapper.toItemDto(item);
     }
 
+    @Override
+    public List<BatchResult<ItemDto>> addItems(List<ItemDto> itemDtos, Long ownerId) {
+        log.info("Adding {} items in batch for owner ID: {}", itemDtos.size(), ownerId);
+
+        userService.getUserEntityById(ownerId); // Проверка существования пользователя
+
+        List<BatchResult<ItemDto>> results = new ArrayList<>(itemDtos.size());
+        Map<Long, Item> created = new LinkedHashMap<>();
+        // id вещи -> позиция её результата
+        Map<Long, Integer> positions = new HashMap<>();
+        for (int i = 0; i < itemDtos.size(); i++) {
+            try {
+                dtoValidator.validate(itemDtos.get(i));
+                Item item = prepareItem(itemDtos.get(i), ownerId);
+                created.put(item.getId(), item);
+                positions.put(item.getId(), i);
+                results.add(BatchResult.of(i, HttpStatus.CREATED, ItemMapper.toItemDto(item)));
+            } catch (RuntimeException e) {
+                results.add(BatchResult.failed(i, e));
+            }
+        }
+
+        // Поиск и так отбрасывает id, которых ещё нет в хранилище, поэтому индексируем до записи
+        created.values().forEach(searchIndex::index);
+        try {
+            items.putAll(created);
+        } catch (RuntimeException e) {
+            // Запись могла пройти частично: тех, кого нет в хранилище, переводим в ошибки и убираем из поиска
+            created.values().removeIf(item -> {
+                if (items.containsKey(item.getId())) {
+                    return false;
+                }
+                searchIndex.remove(item);
+                int index = positions.get(item.getId());
+                results.set(index, BatchResult.failed(index, e));
+                return true;
+            });
+        }
+        itemsByOwner.computeIfAbsent(ownerId, id -> new ConcurrentSkipListSet<>()).addAll(created.keySet());
+        versions.touch(CollectionVersions.OWNER_ITEMS, ownerId);
+        created.values().forEach(itemRequestService::matchItem);
+
+        log.debug("Added {} of {} items in batch for owner ID: {}", created.size(), itemDtos.size(), ownerId);
+        return results;
+    }
+
+    @Override
+    public List<BatchResult<ItemDto>> updateItems(List<ItemDto> itemDtos, Long ownerId) {
+        log.info("Updating {} items in batch for owner ID: {}", itemDtos.size(), ownerId);
+
+        List<BatchResult<ItemDto>> results = new ArrayList<>(itemDtos.size());
+        for (int i = 0; i < itemDtos.size(); i++) {
+            ItemDto itemDto = itemDtos.get(i);
+            try {
+                if (itemDto.getId() == null) {
+                    throw new ValidationException("Item id is required");
+                }
+                results.add(BatchResult.of(i, HttpStatus.OK, updateItem(itemDto.getId(), itemDto, ownerId)));
+            } catch (RuntimeException e) {
+                results.add(BatchResult.failed(i, e));
+            }
+        }
+        return results;
+    }
+
+    // Проверяет запрос, на который отвечает вещь, и выдаёт id; в хранилище не пишет
+    private Item prepareItem(ItemDto itemDto, Long ownerId) {
+        if (itemDto.getRequestId() != null) {
+            log.debug("Item has request ID: {}", itemDto.getRequestId());
+            itemRequestService.getRequestEntityById(itemDto.getRequestId()); // Проверка существования запроса
+        }
+
+        Item item = ItemMapper.toItem(itemDto, ownerId);
+        item.setId(items.nextId());
+        return item;
+    }
+
     @Override
     public ItemDto updateItem(Long itemId, ItemDto itemDto, Long ownerId) {
         log.info("Updating item ID: {} for owner ID: {}", itemId, ownerId);
 
-        Item existingItem = items.get(itemId);
-        if (existingItem == null) {
+        Item updatedItem;
+        try {
+            // Поиск следует за хранилищем через onChange: и при записи, и при её откате
+            updatedItem = items.update(itemId, existingItem -> patchItem(itemId, existingItem, itemDto, ownerId),
+                    (before, after) -> searchIndex.update(itemId, ItemSearchIndex.textOf(before), after));
+        } finally {
+            jsonCache.invalidate(JsonCache.ITEMS, itemId);
+            jsonCache.invalidate(JsonCache.OWNED_ITEMS, itemId);
+        }
+
+        if (updatedItem == null) {
             log.warn("Item not found for update: ID={}", itemId);
             throw new NotFoundException("Item not found with id: " + itemId);
         }
+        versions.touch(CollectionVersions.OWNER_ITEMS, ownerId);
+        itemRequestService.matchItem(updatedItem);
 
-        if (!existingItem.getOwner().getId().equals(ownerId)) {
+        return ItemMapper.toItemDto(updatedItem);
+    }
+
+    // Вызывается под замком вещи; меняет только копию вещи
+    private Item patchItem(Long itemId, Item existingItem, ItemDto itemDto, Long ownerId) {
+        if (!existingItem.getOwnerId().equals(ownerId)) {
             log.warn("User {} is not owner of item {}", ownerId, itemId);
             throw new NotFoundException("User is not the owner of the item");
         }
@@ -74,22 +218,24 @@ public class ItemServiceImpl implements ItemService {
         String originalDesc = existingItem.getDescription();
         Boolean originalAvailable = existingItem.getAvailable();
 
-        if (itemDto.getName() != null) existingItem.setName(itemDto.getName());
-        if (itemDto.getDescription() != null) existingItem.setDescription(itemDto.getDescription());
-        if (itemDto.getAvailable() != null) existingItem.setAvailable(itemDto.getAvailable());
-
-        log.debug("Updated item: ID={}, Name: {} -> {}, Description: {} -> {}, Available: {} -> {}",
-                itemId, originalName, existingItem.getName(),
-                originalDesc != null ? originalDesc.substring(0, Math.min(20, originalDesc.length())) + "..." : "null",
-                existingItem.getDescription() != null ? existingItem.getDescription().substring(0, Math.min(20, existingItem.getDescription().length())) + "..." : "null",
-                originalAvailable, existingItem.getAvailable());
+        Item patched = existingItem;
+        if (itemDto.getName() != null) patched = patched.withName(itemDto.getName());
+        if (itemDto.getDescription() != null) patched = patched.withDescription(itemDto.getDescription());
+        if (itemDto.getAvailable() != null) patched = patched.withAvailable(itemDto.getAvailable());
 
-        return ItemMapper.toItemDto(existingItem);
+        // Аргументы обрезаются только при включённом DEBUG: вызов идёт под замком вещи
+        if (log.isDebugEnabled()) {
+            log.debug("Updated item: ID={}, Name: {} -> {}, Description: {} -> {}, Available: {} -> {}",
+                    itemId, originalName, patched.getName(),
+                    truncate(originalDesc, 20), truncate(patched.getDescription(), 20),
+                    originalAvailable, patched.getAvailable());
+        }
+        return patched;
     }
 
     @Override
-    public ItemDto getItemById(Long itemId) {
-        log.debug("Fetching item by ID: {}", itemId);
+    public ItemDto getItemById(Long itemId, Long userId) {
+        log.debug("Fetching item by ID: {} for user ID: {}", itemId, userId);
 
         Item item = items.get(itemId);
         if (item == null) {
@@ -97,43 +243,123 @@ public class ItemServiceImpl implements ItemService {
             throw new NotFoundException("Item not found with id: " + itemId);
         }
 
-        return ItemMapper.toItemDto(item);
+        ItemDto result = ItemMapper.toItemDto(item);
+        if (item.getOwnerId().equals(userId)) {
+            withBookings(result, LocalDateTime.now());
+        }
+        return result;
     }
 
+    // По индексу владельцев, без чтения самой вещи из хранилища
     @Override
-    public List<ItemDto> getAllItemsByOwner(Long ownerId) {
-        log.debug("Fetching all items for owner ID: {}", ownerId);
+    public boolean isOwnedBy(Long itemId, Long userId) {
+        NavigableSet<Long> ownerItemIds = userId != null ? itemsByOwner.get(userId) : null;
+        return ownerItemIds != null && ownerItemIds.contains(itemId);
+    }
 
-        List<ItemDto> result = items.values().stream()
-                .filter(item -> item.getOwner().getId().equals(ownerId))
-                .map(ItemMapper::toItemDto)
-                .toList();
+    @Override
+    public Page<ItemDto> getAllItemsByOwner(Long ownerId, PageRequest page) {
+        log.debug("Fetching all items ({}) for owner ID: {}", page, ownerId);
+
+        List<ItemDto> result = streamItemsByOwner(ownerId, page).toList();
 
         log.debug("Found {} items for owner ID: {}", result.size(), ownerId);
-        return result;
+        return Page.of(result, page, ItemServiceImpl::cursorOf);
     }
 
+    // Список меняется и без записи, когда начинается очередное подтверждённое бронирование
     @Override
-    public List<ItemDto> searchItems(String text) {
-        log.debug("Searching items by text: '{}'", text);
+    public String itemsByOwnerETag(Long ownerId) {
+        long changesAt = approvedBookings.nextChange(ownerId, LocalDateTime.now());
+        return versions.etag(CollectionVersions.OWNER_ITEMS, ownerId, changesAt);
+    }
 
-        if (text == null || text.isBlank()) {
-            log.debug("Empty search text - returning empty list");
-            return Collections.emptyList();
+    @Override
+    public Stream<ItemDto> streamItemsByOwner(Long ownerId, PageRequest page) {
+        NavigableSet<Long> ownerItemIds = itemsByOwner.get(ownerId);
+        if (ownerItemIds == null) {
+            return Stream.empty();
+        }
+        if (page.after() != null) {
+            ownerItemIds = ownerItemIds.tailSet(page.after().id(), false);
         }
 
-        String searchText = text.toLowerCase();
-        List<ItemDto> result = items.values().stream()
-                .filter(item -> Boolean.TRUE.equals(item.getAvailable()))
-                .filter(item ->
-                        (item.getName() != null && item.getName().toLowerCase().contains(searchText)) ||
-                                (item.getDescription() != null && item.getDescription().toLowerCase().contains(searchText))
-                )
-                .map(ItemMapper::toItemDto)
+        LocalDateTime now = LocalDateTime.now();
+        return ownerItemIds.stream()
+                .skip(page.from())
+                .limit(page.size())
+                .map(items::get)
+                .filter(Objects::nonNull)
+                .map(item -> withBookings(ItemMapper.toItemDto(item), now));
+    }
+
+    @Override
+    public List<ItemDto> getItemsByIds(List<Long> itemIds, Long userId) {
+        log.debug("Fetching {} items by ID for user ID: {}", itemIds.size(), userId);
+
+        LocalDateTime now = LocalDateTime.now();
+        return itemIds.stream()
+                .map(items::get)
+                .filter(Objects::nonNull)
+                .map(item -> {
+                    ItemDto result = ItemMapper.toItemDto(item);
+                    return item.getOwnerId().equals(userId) ? withBookings(result, now) : result;
+                })
                 .toList();
+    }
+
+    @Override
+    public Page<ItemDto> searchItems(String text, PageRequest page) {
+        log.debug("Searching items by text: '{}' ({})", text, page);
+
+        Page<Long> found = findItems(text, page);
+        List<ItemDto> result = toItemDtos(found.content()).toList();
 
         log.debug("Found {} items for search: '{}'", result.size(), text);
-        return result;
+        return new Page<>(result, found.next());
+    }
+
+    @Override
+    public StreamPage<ItemDto> streamSearchItems(String text, PageRequest page) {
+        Page<Long> found = findItems(text, page);
+        return new StreamPage<>(toItemDtos(found.content()), found.next());
+    }
+
+    /**
+     * Id найденных вещей и курсор продолжения. Курсор поиска — id последней просмотренной вещи
+     * и в ключе число совпадений после неё, которые ещё нужно пропустить: так остаток from
+     * не теряется, когда поиск упирается в предел работы.
+     */
+    private Page<Long> findItems(String text, PageRequest page) {
+        if (text == null || text.isBlank()) {
+            log.debug("Empty search text - returning empty list");
+            return new Page<>(List.of(), null);
+        }
+
+        Long afterId = page.after() != null ? page.after().id() : null;
+        int from = page.after() != null ? skipOf(page.after()) : page.from();
+        ItemSearchIndex.Result found = searchIndex.search(text, afterId, from, page.size());
+        searchResults.record(found.ids().size());
+        // Поиск упёрся в предел работы раньше, чем набрал страницу: курсор продолжит с того же места
+        if (found.resumeAfter() != null) {
+            return new Page<>(found.ids(), Cursor.of(found.resumeSkip(), found.resumeAfter()));
+        }
+        return Page.of(found.ids(), page, id -> Cursor.of(0, id));
+    }
+
+    private static int skipOf(Cursor cursor) {
+        long skip = cursor.sortKeyAsLong();
+        if (skip < 0 || skip > Integer.MAX_VALUE) {
+            throw new ValidationException("Invalid cursor");
+        }
+        return (int) skip;
+    }
+
+    private Stream<ItemDto> toItemDtos(List<Long> ids) {
+        return ids.stream()
+                .map(items::get)
+                .filter(Objects::nonNull)
+                .map(ItemMapper::toItemDto);
     }
 
     @Override
@@ -148,4 +374,60 @@ public class ItemServiceImpl implements ItemService {
 
         return item;
     }
+
+    @Override
+    public Stream<ItemDto> exportItems() {
+        return items.values().stream().map(ItemMapper::toItemDto);
+    }
+
+    @Override
+    public void restoreItem(ItemDto itemDto) {
+        if (itemDto.getId() == null || itemDto.getOwnerId() == null) {
+            throw new ValidationException("Item id and owner are required");
+        }
+        dtoValidator.validate(itemDto);
+        userService.getUserEntityById(itemDto.getOwnerId()); // Проверка существования пользователя
+        if (itemDto.getRequestId() != null) {
+            itemRequestService.getRequestEntityById(itemDto.getRequestId()); // Проверка существования запроса
+        }
+
+        Item item = ItemMapper.toItem(itemDto, itemDto.getOwnerId());
+        if (items.putIfAbsent(item.getId(), item) != null) {
+            throw new ValidationException("Item already exists: " + item.getId());
+        }
+        // Индекс обновляется уже после записи, под замком вещи, как в updateItem
+        items.locked(item.getId(), () -> {
+            searchIndex.index(item);
+            return item;
+        });
+        items.advanceNextId(item.getId() + 1);
+        itemsByOwner.computeIfAbsent(item.getOwnerId(), id -> new ConcurrentSkipListSet<>()).add(item.getId());
+        versions.touch(CollectionVersions.OWNER_ITEMS, item.getOwnerId());
+        itemRequestService.matchItem(item);
+    }
+
+    // Перестроение индексов после восстановления данных при старте
+    private void rebuildIndexes() {
+        items.values().forEach(item -> {
+            itemsByOwner.computeIfAbsent(item.getOwnerId(), id -> new ConcurrentSkipListSet<>())
+                    .add(item.getId());
+            searchIndex.index(item);
+            itemRequestService.matchItem(item);
+        });
+    }
+
+    private ItemDto withBookings(ItemDto item, LocalDateTime now) {
+        item.setLastBooking(approvedBookings.last(item.getId(), now));
+        item.setNextBooking(approvedBookings.next(item.getId(), now));
+        return item;
+    }
+
+    private static Cursor cursorOf(ItemDto item) {
+        return Cursor.of(item.getId(), item.getId());
+    }
+
+    private static String truncate(String text, int length) {
+        if (text == null) return "null";
+        return text.length() <= length ? text : text.substring(0, length) + "...";
+    }
 }
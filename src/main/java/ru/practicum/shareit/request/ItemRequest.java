@@ -3,7 +3,6 @@ package ru.practicum.shareit.request;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
-import ru.practicum.shareit.user.User;
 
 import java.time.LocalDateTime;
 
@@ -19,7 +18,7 @@ public class ItemRequest {
     private String description;
 
     @NotNull(message = "Requestor is required")
-    private User requestor;
+    private Long requestorId;
 
     private LocalDateTime created = LocalDateTime.now();
 }
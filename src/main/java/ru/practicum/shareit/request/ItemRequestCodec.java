@@ -0,0 +1,28 @@
+package ru.practicum.shareit.request;
+
+import ru.practicum.shareit.storage.Codecs;
+import ru.practicum.shareit.storage.EntityCodec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+class ItemRequestCodec implements EntityCodec<ItemRequest> {
+    @Override
+    public void write(ItemRequest request, DataOutput out) throws IOException {
+        Codecs.writeLong(out, request.getId());
+        Codecs.writeString(out, request.getDescription());
+        Codecs.writeLong(out, request.getRequestorId());
+        Codecs.writeTime(out, request.getCreated());
+    }
+
+    @Override
+    public ItemRequest read(DataInput in) throws IOException {
+        ItemRequest request = new ItemRequest();
+        request.setId(Codecs.readLong(in));
+        request.setDescription(Codecs.readString(in));
+        request.setRequestorId(Codecs.readLong(in));
+        request.setCreated(Codecs.readTime(in));
+        return request;
+    }
+}
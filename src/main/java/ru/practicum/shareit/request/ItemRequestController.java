@@ -3,7 +3,11 @@ package ru.practicum.shareit.request;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.practicum.shareit.common.Page;
+import ru.practicum.shareit.common.PageRequest;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 
@@ -25,35 +29,54 @@ public class ItemRequestController {
             @RequestBody ItemRequestDto requestDto,
             @RequestHeader("X-Sharer-User-Id") Long userId
     ) {
-        log.info("POST /requests - User {} creating request: '{}'",
-                userId, truncate(requestDto.getDescription(), 50));
+        if (log.isInfoEnabled()) {
+            log.info("POST /requests - User {} creating request: '{}'",
+                    userId, truncate(requestDto.getDescription(), 50));
+        }
         ItemRequestDto createdRequest = requestService.createRequest(requestDto, userId);
-        log.debug("Created request: ID={}, Description='{}'",
-                createdRequest.getId(), truncate(createdRequest.getDescription(), 50));
+        if (log.isDebugEnabled()) {
+            log.debug("Created request: ID={}, Description='{}'",
+                    createdRequest.getId(), truncate(createdRequest.getDescription(), 50));
+        }
         return createdRequest;
     }
 
     @GetMapping
-    public List<ItemRequestDto> getAllRequestsForUser(
-            @RequestHeader("X-Sharer-User-Id") Long userId
+    public ResponseEntity<List<ItemRequestDto>> getAllRequestsForUser(
+            @RequestHeader("X-Sharer-User-Id") Long userId,
+            @RequestParam(defaultValue = "0") int from,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor,
+            WebRequest request
     ) {
-        log.info("GET /requests - Fetching all requests for user {}", userId);
-        List<ItemRequestDto> requests = requestService.getAllRequestsForUser(userId);
-        log.debug("Fetched {} requests for user {}", requests.size(), userId);
-        return requests;
+        log.info("GET /requests?from={}&size={}&cursor={} - Fetching all requests for user {}",
+                from, size, cursor, userId);
+        if (request.checkNotModified(requestService.requestsForUserETag(userId))) {
+            return null;
+        }
+        Page<ItemRequestDto> requests = requestService.getAllRequestsForUser(userId,
+                PageRequest.of(from, size, cursor));
+        log.debug("Fetched {} requests for user {}", requests.content().size(), userId);
+        return requests.toResponseEntity();
     }
 
     @GetMapping("/all")
-    public List<ItemRequestDto> getAllRequests(
+    public ResponseEntity<List<ItemRequestDto>> getAllRequests(
             @RequestHeader("X-Sharer-User-Id") Long userId,
             @RequestParam(defaultValue = "0") int from,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            WebRequest request
     ) {
-        log.info("GET /requests/all?from={}&size={} - Fetching all requests for user {}", from, size, userId);
-        List<ItemRequestDto> requests = requestService.getAllRequests(userId, from, size);
+        log.info("GET /requests/all?from={}&size={}&cursor={} - Fetching all requests for user {}",
+                from, size, cursor, userId);
+        if (request.checkNotModified(requestService.allRequestsETag())) {
+            return null;
+        }
+        Page<ItemRequestDto> requests = requestService.getAllRequests(userId, PageRequest.of(from, size, cursor));
         log.debug("Fetched {} requests (from={}, size={}) for user {}",
-                requests.size(), from, size, userId);
-        return requests;
+                requests.content().size(), from, size, userId);
+        return requests.toResponseEntity();
     }
 
     @GetMapping("/{requestId}")
@@ -63,8 +86,10 @@ public class ItemRequestController {
     ) {
         log.info("GET /requests/{} - Fetching request by user {}", requestId, userId);
         ItemRequestDto request = requestService.getRequestById(requestId);
-        log.debug("Fetched request: ID={}, Description='{}'",
-                requestId, truncate(request.getDescription(), 50));
+        if (log.isDebugEnabled()) {
+            log.debug("Fetched request: ID={}, Description='{}'",
+                    requestId, truncate(request.getDescription(), 50));
+        }
         return request;
     }
 
@@ -89,7 +114,7 @@ public class ItemRequestController {
         return "Internal server error";
     }
 
-    private String truncate(String text, int length) {
+    private static String truncate(String text, int length) {
         if (text == null) return "null";
         return text.length() <= length ? text : text.substring(0, length) + "...";
     }
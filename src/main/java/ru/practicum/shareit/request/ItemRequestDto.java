@@ -1,11 +1,13 @@
 package ru.practicum.shareit.request;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Getter
 @Setter
@@ -16,4 +18,7 @@ public class ItemRequestDto {
     private String description;
     private Long requestorId;
     private LocalDateTime created;
+    // Заполняется только в ответах API; в выгрузку данных не попадает
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<SuggestedItemDto> suggestions;
 }
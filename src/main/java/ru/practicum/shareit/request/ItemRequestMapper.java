@@ -1,22 +1,21 @@
 package ru.practicum.shareit.request;
 
-import ru.practicum.shareit.user.User;
-
 public class ItemRequestMapper {
     public static ItemRequestDto toItemRequestDto(ItemRequest request) {
         return new ItemRequestDto(
                 request.getId(),
                 request.getDescription(),
-                request.getRequestor().getId(),
-                request.getCreated()
+                request.getRequestorId(),
+                request.getCreated(),
+                null
         );
     }
 
-    public static ItemRequest toItemRequest(ItemRequestDto requestDto, User requestor) {
+    public static ItemRequest toItemRequest(ItemRequestDto requestDto, Long requestorId) {
         ItemRequest request = new ItemRequest();
         request.setId(requestDto.getId());
         request.setDescription(requestDto.getDescription());
-        request.setRequestor(requestor);
+        request.setRequestorId(requestorId);
         request.setCreated(requestDto.getCreated());
         return request;
     }
@@ -1,13 +1,38 @@
 package ru.practicum.shareit.request;
 
-import java.util.List;
+import ru.practicum.shareit.common.Page;
+import ru.practicum.shareit.common.PageRequest;
+import ru.practicum.shareit.item.Item;
+
+import java.util.stream.Stream;
 
 public interface ItemRequestService {
     ItemRequestDto createRequest(ItemRequestDto requestDto, Long userId);
 
     ItemRequestDto getRequestById(Long requestId);
 
-    List<ItemRequestDto> getAllRequestsForUser(Long userId);
+    ItemRequest getRequestEntityById(Long requestId);
+
+    Stream<ItemRequestDto> exportRequests();
+
+    /**
+     * Сохраняет запрос с уже выданным id (импорт данных).
+     */
+    void restoreRequest(ItemRequestDto requestDto);
+
+    Page<ItemRequestDto> getAllRequestsForUser(Long userId, PageRequest page);
+
+    Page<ItemRequestDto> getAllRequests(Long userId, PageRequest page);
+
+    /**
+     * ETag списка собственных запросов пользователя; читается до построения списка.
+     */
+    String requestsForUserETag(Long userId);
+
+    String allRequestsETag();
 
-    List<ItemRequestDto> getAllRequests(Long userId, int from, int size);
+    /**
+     * Подбирает вещь к запросам после её добавления или изменения; недоступная вещь из подборок убирается.
+     */
+    void matchItem(Item item);
 }
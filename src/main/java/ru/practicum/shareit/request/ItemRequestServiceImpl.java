@@ -1,54 +1,86 @@
 package ru.practicum.shareit.request;
 
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import ru.practicum.shareit.common.CollectionVersions;
+import ru.practicum.shareit.common.Cursor;
+import ru.practicum.shareit.common.Page;
+import ru.practicum.shareit.common.PageRequest;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
-import ru.practicum.shareit.user.User;
-import ru.practicum.shareit.user.UserMapper;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.storage.EntityStorage;
+import ru.practicum.shareit.storage.EntityStorageFactory;
 import ru.practicum.shareit.user.UserService;
 
 import java.time.LocalDateTime;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicLong;
-
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+@Timed(value = "shareit.service", histogram = true)
 @Service
 public class ItemRequestServiceImpl implements ItemRequestService {
     private static final Logger log = LoggerFactory.getLogger(ItemRequestServiceImpl.class);
-    private final Map<Long, ItemRequest> requests = new HashMap<>();
-    private final AtomicLong idCounter = new AtomicLong(1);
+    private static final int SUGGESTIONS = 5;
+    private final EntityStorage<ItemRequest> requests;
+    private final Map<Long, NavigableSet<RequestKey>> requestsByRequestor = new ConcurrentHashMap<>();
+    private final NavigableSet<RequestKey> requestsByCreated = new ConcurrentSkipListSet<>();
+    private final RequestMatcher matcher = new RequestMatcher();
     private final UserService userService;
+    private final CollectionVersions versions;
 
-    public ItemRequestServiceImpl(UserService userService) {
+    public ItemRequestServiceImpl(UserService userService, CollectionVersions versions,
+                                  EntityStorageFactory storageFactory, MeterRegistry meterRegistry) {
         this.userService = userService;
+        this.versions = versions;
+        this.requests = storageFactory.create("requests", new ItemRequestCodec(), this::rebuildIndexes);
+
+        Gauge.builder("shareit.entities", requests, EntityStorage::size).tag("type", "request")
+                .register(meterRegistry);
+        // Размер requestsByCreated не снимается: size() у ConcurrentSkipListSet проходит весь набор
+        Gauge.builder("shareit.index.entries", requestsByRequestor, Map::size).tag("index", "request-requestor")
+                .register(meterRegistry);
+        Gauge.builder("shareit.index.entries", matcher, RequestMatcher::terms).tag("index", "request-match-terms")
+                .register(meterRegistry);
     }
 
     @Override
     public ItemRequestDto createRequest(ItemRequestDto requestDto, Long userId) {
         log.info("Creating request for user ID: {}", userId);
 
-        User requestor = UserMapper.toUser(userService.getUserById(userId));
+        userService.getUserEntityById(userId); // Проверка существования пользователя
 
         if (requestDto.getDescription() == null || requestDto.getDescription().isBlank()) {
             log.warn("Empty description in request from user {}", userId);
             throw new ValidationException("Request description cannot be empty");
         }
 
-        ItemRequest request = ItemRequestMapper.toItemRequest(requestDto, requestor);
-        request.setId(idCounter.getAndIncrement());
+        ItemRequest request = ItemRequestMapper.toItemRequest(requestDto, userId);
+        request.setId(requests.nextId());
         request.setCreated(LocalDateTime.now());
-        requests.put(request.getId(), request);
-
-        log.debug("Created request: ID={}, User={}, Description='{}', Created={}",
-                request.getId(), userId,
-                truncate(request.getDescription(), 30),
-                request.getCreated());
+        requests.save(request.getId(), request);
+        indexRequest(request);
+        touchLists(request);
+
+        if (log.isDebugEnabled()) {
+            log.debug("Created request: ID={}, User={}, Description='{}', Created={}",
+                    request.getId(), userId,
+                    truncate(request.getDescription(), 30),
+                    request.getCreated());
+        }
 
-        return ItemRequestMapper.toItemRequestDto(request);
+        return withSuggestions(ItemRequestMapper.toItemRequestDto(request));
     }
 
     @Override
@@ -61,59 +93,138 @@ public class ItemRequestServiceImpl implements ItemRequestService {
             throw new NotFoundException("Request not found with id: " + requestId);
         }
 
-        return ItemRequestMapper.toItemRequestDto(request);
+        return withSuggestions(ItemRequestMapper.toItemRequestDto(request));
     }
 
     @Override
-    public List<ItemRequestDto> getAllRequestsForUser(Long userId) {
-        log.debug("Fetching all requests for user ID: {}", userId);
+    public ItemRequest getRequestEntityById(Long requestId) {
+        log.debug("Fetching request entity by ID: {}", requestId);
+
+        ItemRequest request = requests.get(requestId);
+        if (request == null) {
+            log.warn("Request entity not found: ID={}", requestId);
+            throw new NotFoundException("Request not found with id: " + requestId);
+        }
 
-        userService.getUserById(userId); // Проверка существования пользователя
+        return request;
+    }
 
-        List<ItemRequestDto> result = requests.values().stream()
-                .filter(r -> r.getRequestor().getId().equals(userId))
-                .sorted(Comparator.comparing(ItemRequest::getCreated).reversed())
-                .map(ItemRequestMapper::toItemRequestDto)
+    @Override
+    public Page<ItemRequestDto> getAllRequestsForUser(Long userId, PageRequest page) {
+        log.debug("Fetching all requests ({}) for user ID: {}", page, userId);
+
+        userService.getUserEntityById(userId); // Проверка существования пользователя
+
+        NavigableSet<RequestKey> keys = requestsByRequestor.getOrDefault(userId, Collections.emptyNavigableSet());
+        List<ItemRequestDto> result = after(keys, page.after()).stream()
+                .skip(page.from())
+                .limit(page.size())
+                .map(key -> requests.get(key.id()))
+                .filter(Objects::nonNull)
+                .map(request -> withSuggestions(ItemRequestMapper.toItemRequestDto(request)))
                 .toList();
 
         log.debug("Found {} requests for user ID: {}", result.size(), userId);
-        return result;
+        return Page.of(result, page, ItemRequestServiceImpl::cursorOf);
     }
 
     @Override
-    public List<ItemRequestDto> getAllRequests(Long userId, int from, int size) {
-        log.debug("Fetching all requests (from={}, size={}) excluding user ID: {}", from, size, userId);
+    public Page<ItemRequestDto> getAllRequests(Long userId, PageRequest page) {
+        log.debug("Fetching all requests ({}) excluding user ID: {}", page, userId);
+
+        // Свои запросы пропускаются по ходу обхода, поэтому читается только from + size чужих
+        List<ItemRequestDto> result = after(requestsByCreated, page.after()).stream()
+                .filter(key -> key.requestorId() != userId)
+                .skip(page.from())
+                .limit(page.size())
+                .map(key -> requests.get(key.id()))
+                .filter(Objects::nonNull)
+                .map(request -> withSuggestions(ItemRequestMapper.toItemRequestDto(request)))
+                .toList();
+
+        log.debug("Fetched {} requests ({}) excluding user {}", result.size(), page, userId);
+
+        return Page.of(result, page, ItemRequestServiceImpl::cursorOf);
+    }
+
+    @Override
+    public Stream<ItemRequestDto> exportRequests() {
+        return requests.values().stream().map(ItemRequestMapper::toItemRequestDto);
+    }
+
+    @Override
+    public void restoreRequest(ItemRequestDto requestDto) {
+        if (requestDto.getId() == null || requestDto.getCreated() == null) {
+            throw new ValidationException("Request id and creation time are required");
+        }
+        if (requestDto.getDescription() == null || requestDto.getDescription().isBlank()) {
+            throw new ValidationException("Request description cannot be empty");
+        }
+        userService.getUserEntityById(requestDto.getRequestorId()); // Проверка существования пользователя
 
-        if (from < 0) {
-            log.warn("Invalid 'from' parameter: {}", from);
-            throw new ValidationException("'from' must be positive or zero");
+        ItemRequest request = ItemRequestMapper.toItemRequest(requestDto, requestDto.getRequestorId());
+        if (requests.putIfAbsent(request.getId(), request) != null) {
+            throw new ValidationException("Request already exists: " + request.getId());
         }
+        requests.advanceNextId(request.getId() + 1);
+        indexRequest(request);
+        touchLists(request);
+    }
+
+    @Override
+    public String requestsForUserETag(Long userId) {
+        return versions.etag(CollectionVersions.USER_REQUESTS, userId);
+    }
+
+    // Лента чужих запросов одна на всех: свои запросы из неё лишь отфильтровываются
+    @Override
+    public String allRequestsETag() {
+        return versions.etag(CollectionVersions.ALL_REQUESTS, 0L);
+    }
 
-        if (size <= 0) {
-            log.warn("Invalid 'size' parameter: {}", size);
-            throw new ValidationException("'size' must be positive");
+    private void touchLists(ItemRequest request) {
+        versions.touch(CollectionVersions.USER_REQUESTS, request.getRequestorId());
+        versions.touch(CollectionVersions.ALL_REQUESTS, 0L);
+    }
+
+    // Подборки входят в ответы со списками запросов, поэтому их изменение меняет и версии списков
+    @Override
+    public void matchItem(Item item) {
+        Set<Long> requestors = matcher.indexItem(item);
+        if (requestors.isEmpty()) {
+            return;
         }
+        requestors.forEach(requestorId -> versions.touch(CollectionVersions.USER_REQUESTS, requestorId));
+        versions.touch(CollectionVersions.ALL_REQUESTS, 0L);
+        log.debug("Item {} changed suggestions for requests of {} users", item.getId(), requestors.size());
+    }
 
-        List<ItemRequest> allRequests = requests.values().stream()
-                .filter(r -> !r.getRequestor().getId().equals(userId))
-                .sorted(Comparator.comparing(ItemRequest::getCreated).reversed())
-                .toList();
+    private void indexRequest(ItemRequest request) {
+        RequestKey key = RequestKey.of(request);
+        requestsByRequestor.computeIfAbsent(key.requestorId(), id -> new ConcurrentSkipListSet<>()).add(key);
+        requestsByCreated.add(key);
+        matcher.indexRequest(request);
+    }
 
-        int total = allRequests.size();
-        int start = Math.min(from, total);
-        int end = Math.min(start + size, total);
+    private ItemRequestDto withSuggestions(ItemRequestDto request) {
+        request.setSuggestions(matcher.suggestions(request.getId(), SUGGESTIONS));
+        return request;
+    }
 
-        List<ItemRequestDto> result = allRequests.subList(start, end).stream()
-                .map(ItemRequestMapper::toItemRequestDto)
-                .toList();
+    // Перестроение индексов после восстановления данных при старте
+    private void rebuildIndexes() {
+        requests.values().forEach(this::indexRequest);
+    }
 
-        log.debug("Fetched {} requests (from={} to {}) of total {} excluding user {}",
-                result.size(), start, end, total, userId);
+    private static NavigableSet<RequestKey> after(NavigableSet<RequestKey> keys, Cursor cursor) {
+        return cursor != null ? keys.tailSet(RequestKey.after(cursor), false) : keys;
+    }
 
-        return result;
+    private static Cursor cursorOf(ItemRequestDto request) {
+        return Cursor.of(request.getCreated(), request.getId());
     }
 
-    private String truncate(String text, int length) {
+    private static String truncate(String text, int length) {
         if (text == null) return "null";
         return text.length() <= length ? text : text.substring(0, length) + "...";
     }
@@ -0,0 +1,29 @@
+package ru.practicum.shareit.request;
+
+import ru.practicum.shareit.common.Cursor;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+/**
+ * Ключ сортировки запросов: сначала новые, при равном времени — с большим id.
+ * requestorId хранится в ключе, чтобы пропускать свои запросы без обращения к хранилищу.
+ */
+record RequestKey(LocalDateTime created, long id, long requestorId) implements Comparable<RequestKey> {
+    private static final Comparator<RequestKey> ORDER = Comparator.comparing(RequestKey::created)
+            .thenComparingLong(RequestKey::id)
+            .reversed();
+
+    static RequestKey of(ItemRequest request) {
+        return new RequestKey(request.getCreated(), request.getId(), request.getRequestorId());
+    }
+
+    static RequestKey after(Cursor cursor) {
+        return new RequestKey(cursor.sortKeyAsTime(), cursor.id(), 0);
+    }
+
+    @Override
+    public int compareTo(RequestKey other) {
+        return ORDER.compare(this, other);
+    }
+}
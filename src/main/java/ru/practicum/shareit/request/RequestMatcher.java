@@ -0,0 +1,269 @@
+package ru.practicum.shareit.request;
+
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.storage.StripedLocks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Подбор доступных вещей к запросам по общим словам описания запроса и названия с описанием вещи.
+ * Два инвертированных индекса (слово -> запросы, слово -> вещи) делают подбор инкрементальным:
+ * новая или изменённая вещь сопоставляется только с запросами, где встречаются её слова,
+ * новый запрос — только с вещами. У запроса хранятся лишь KEEP лучших вещей; когда после снятия
+ * вещей в подборке остаётся меньше половины, она пересчитывается по индексу вещей.
+ * Слова сопоставляются от редких к частым: кандидатов набирают редкие слова, и набор
+ * ограничен MAX_CANDIDATES; частое слово после этого лишь добавляет очко уже найденным,
+ * так что обход стоит не больше размера набора.
+ * Вещь переиндексируется под своим замком, подборка запроса меняется под замком запроса;
+ * замок запроса берётся внутри замка вещи, но не наоборот. Чтение подборок — без замка.
+ */
+class RequestMatcher {
+    private static final int MIN_TERM = 3;
+    private static final int MAX_CANDIDATES = 1000;
+    private static final int KEEP = 10;
+    private static final int STRIPES = 64;
+    private static final Set<String> STOP_WORDS = Set.of(
+            "the", "and", "for", "with", "need", "want", "any", "some", "что", "для", "как", "нужен",
+            "нужна", "нужно", "нужны", "ищу", "или", "есть", "кто", "который", "которая");
+    // Больше общих слов — выше, при равенстве раньше добавленная вещь
+    private static final Comparator<Match> RANK = Comparator.comparingInt(Match::score).reversed()
+            .thenComparingLong(Match::itemId);
+    private static final Match[] NONE = new Match[0];
+
+    private final Map<String, Set<Long>> requestsByTerm = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> itemsByTerm = new ConcurrentHashMap<>();
+    private final Map<Long, Document> requests = new ConcurrentHashMap<>();
+    // Только доступные вещи
+    private final Map<Long, Document> items = new ConcurrentHashMap<>();
+    // Лучшие вещи запроса по убыванию ранга; массивы не изменяются, а заменяются целиком
+    private final Map<Long, Match[]> matches = new ConcurrentHashMap<>();
+    // Вещь -> запросы, в подборках которых она есть
+    private final Map<Long, Set<Long>> holders = new ConcurrentHashMap<>();
+    private final StripedLocks itemLocks = new StripedLocks(STRIPES);
+    private final StripedLocks requestLocks = new StripedLocks(STRIPES);
+
+    void indexRequest(ItemRequest request) {
+        Document document = new Document(request.getRequestorId(), null, terms(request.getDescription()));
+        if (requests.putIfAbsent(request.getId(), document) != null) {
+            return;
+        }
+        addPostings(requestsByTerm, document, request.getId());
+        // Вещь, добавленная одновременно, либо попадёт в пересчёт, либо сама найдёт запрос по словам
+        requestLocks.locked(request.getId(), () -> {
+            refill(request.getId(), document);
+            return null;
+        });
+    }
+
+    /**
+     * Сопоставляет вещь заново после добавления или изменения; недоступная вещь убирается из подборок.
+     * Возвращает id авторов запросов, чьи подборки изменились.
+     */
+    Set<Long> indexItem(Item item) {
+        Document current = Boolean.TRUE.equals(item.getAvailable())
+                ? new Document(item.getOwnerId(), item.getName(), terms(item.getName(), item.getDescription()))
+                : null;
+        return itemLocks.locked(item.getId(), () -> reindex(item.getId(), current));
+    }
+
+    /**
+     * До limit (не больше KEEP) вещей по убыванию числа общих слов, при равенстве — по возрастанию id.
+     */
+    List<SuggestedItemDto> suggestions(Long requestId, int limit) {
+        Match[] found = matches.getOrDefault(requestId, NONE);
+        List<SuggestedItemDto> result = new ArrayList<>(Math.min(limit, found.length));
+        for (Match match : found) {
+            Document item = items.get(match.itemId());
+            // Вещь могла стать недоступной или измениться, пока подборка пересчитывалась
+            if (item == match.item()) {
+                result.add(new SuggestedItemDto(match.itemId(), item.name(), item.ownerId(), match.score()));
+                if (result.size() >= limit) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    int terms() {
+        return requestsByTerm.size();
+    }
+
+    private Set<Long> reindex(Long itemId, Document current) {
+        Document previous = items.get(itemId);
+        if (Objects.equals(previous, current)) {
+            return Collections.emptySet();
+        }
+        Set<Long> affected = new HashSet<>();
+        if (previous != null) {
+            items.remove(itemId);
+            removePostings(itemsByTerm, previous, itemId);
+            for (Long requestId : List.copyOf(holders.getOrDefault(itemId, Set.of()))) {
+                if (requestLocks.locked(requestId, () -> remove(requestId, itemId))) {
+                    affected.add(requests.get(requestId).ownerId());
+                }
+            }
+        }
+        if (current != null) {
+            items.put(itemId, current);
+            addPostings(itemsByTerm, current, itemId);
+            count(current, requestsByTerm, requests).forEach((requestId, score) -> {
+                Match match = new Match(itemId, score, current);
+                if (requestLocks.locked(requestId, () -> offer(requestId, match))) {
+                    affected.add(requests.get(requestId).ownerId());
+                }
+            });
+        }
+        return affected;
+    }
+
+    // Вставляет вещь в подборку, если она попадает в KEEP лучших
+    private boolean offer(Long requestId, Match match) {
+        Match[] found = without(matches.getOrDefault(requestId, NONE), match.itemId());
+        if (found.length == KEEP && RANK.compare(match, found[KEEP - 1]) >= 0) {
+            return false;
+        }
+        int position = Arrays.binarySearch(found, match, RANK);
+        int insertAt = position >= 0 ? position : -position - 1;
+        Match[] updated = new Match[Math.min(found.length + 1, KEEP)];
+        System.arraycopy(found, 0, updated, 0, insertAt);
+        updated[insertAt] = match;
+        System.arraycopy(found, insertAt, updated, insertAt + 1, updated.length - insertAt - 1);
+        publish(requestId, updated);
+        return true;
+    }
+
+    private boolean remove(Long requestId, Long itemId) {
+        Match[] found = matches.getOrDefault(requestId, NONE);
+        Match[] updated = without(found, itemId);
+        if (updated.length == found.length) {
+            return false;
+        }
+        if (updated.length < KEEP / 2) {
+            // За пределами KEEP могли остаться подходящие вещи
+            refill(requestId, requests.get(requestId));
+        } else {
+            publish(requestId, updated);
+        }
+        return true;
+    }
+
+    private static Match[] without(Match[] found, long itemId) {
+        for (Match match : found) {
+            if (match.itemId() == itemId) {
+                return Arrays.stream(found).filter(other -> other.itemId() != itemId).toArray(Match[]::new);
+            }
+        }
+        return found;
+    }
+
+    private void refill(Long requestId, Document request) {
+        List<Match> best = new ArrayList<>();
+        count(request, itemsByTerm, items).forEach((itemId, score) -> {
+            Document item = items.get(itemId);
+            if (item != null) {
+                best.add(new Match(itemId, score, item));
+            }
+        });
+        publish(requestId, best.stream().sorted(RANK).limit(KEEP).toArray(Match[]::new));
+    }
+
+    // Заменяет подборку запроса и обновляет обратный индекс; вызывается под замком запроса
+    private void publish(Long requestId, Match[] updated) {
+        Match[] previous = updated.length > 0 ? matches.put(requestId, updated) : matches.remove(requestId);
+        for (Match match : previous == null ? NONE : previous) {
+            holders.computeIfPresent(match.itemId(), (key, ids) -> {
+                ids.remove(requestId);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+        for (Match match : updated) {
+            holders.computeIfAbsent(match.itemId(), key -> ConcurrentHashMap.newKeySet()).add(requestId);
+        }
+    }
+
+    /**
+     * Число общих слов с документами другой стороны; свои вещи к своим запросам не подбираются.
+     * Кандидатов набирают слова от редких к частым, пока их не станет MAX_CANDIDATES.
+     */
+    private static Map<Long, Integer> count(Document document, Map<String, Set<Long>> postings,
+                                            Map<Long, Document> others) {
+        List<Postings> byRarity = new ArrayList<>();
+        for (String term : document.terms()) {
+            Set<Long> ids = postings.get(term);
+            if (ids != null) {
+                // Размер запоминается: наборы меняются параллельно, а сортировке нужен стабильный ключ
+                byRarity.add(new Postings(ids, ids.size()));
+            }
+        }
+        byRarity.sort(Comparator.comparingInt(Postings::size));
+        Map<Long, Integer> scores = new HashMap<>();
+        for (Postings term : byRarity) {
+            if (scores.size() >= MAX_CANDIDATES && term.size() > scores.size()) {
+                scores.replaceAll((id, score) -> term.ids().contains(id) ? score + 1 : score);
+                continue;
+            }
+            for (Long id : term.ids()) {
+                if (scores.size() >= MAX_CANDIDATES && !scores.containsKey(id)) {
+                    continue;
+                }
+                Document other = others.get(id);
+                if (other != null && !other.ownerId().equals(document.ownerId())) {
+                    scores.merge(id, 1, Integer::sum);
+                }
+            }
+        }
+        return scores;
+    }
+
+    private static void addPostings(Map<String, Set<Long>> postings, Document document, Long id) {
+        for (String term : document.terms()) {
+            postings.computeIfAbsent(term, key -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    private static void removePostings(Map<String, Set<Long>> postings, Document document, Long id) {
+        for (String term : document.terms()) {
+            postings.computeIfPresent(term, (key, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    private static Set<String> terms(String... texts) {
+        Set<String> terms = new HashSet<>();
+        for (String text : texts) {
+            if (text == null) {
+                continue;
+            }
+            for (String word : text.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+                if (word.length() >= MIN_TERM && !STOP_WORDS.contains(word)) {
+                    terms.add(word);
+                }
+            }
+        }
+        return terms;
+    }
+
+    // ownerId — владелец вещи или автор запроса; name есть только у вещей
+    private record Document(Long ownerId, String name, Set<String> terms) {
+    }
+
+    // item — документ вещи, по которому посчитан score
+    private record Match(long itemId, int score, Document item) {
+    }
+
+    private record Postings(Set<Long> ids, int size) {
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Доступная вещь, подобранная к запросу по общим словам; score — число таких слов.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestedItemDto {
+    private Long id;
+    private String name;
+    private Long ownerId;
+    private Integer score;
+}
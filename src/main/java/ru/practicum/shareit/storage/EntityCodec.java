@@ -0,0 +1,14 @@
+package ru.practicum.shareit.storage;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Двоичное представление сущности для журнала и снимков.
+ */
+public interface EntityCodec<T> {
+    void write(T entity, DataOutput out) throws IOException;
+
+    T read(DataInput in) throws IOException;
+}
@@ -0,0 +1,85 @@
+package ru.practicum.shareit.storage;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+public interface EntityStorage<T> {
+    long nextId();
+
+    /**
+     * Сдвигает счётчик так, чтобы следующий выданный id был не меньше nextId.
+     * Нужен, когда сущности сохраняются с уже известными id.
+     */
+    void advanceNextId(long nextId);
+
+    T get(Long id);
+
+    T put(Long id, T entity);
+
+    /**
+     * То же, что put, когда прежнее значение не нужно: реализациям, которые собирают
+     * сущность при чтении, не приходится её собирать.
+     */
+    default void save(Long id, T entity) {
+        put(id, entity);
+    }
+
+    T remove(Long id);
+
+    /**
+     * Сохраняет сущность, только если id ещё свободен. Возвращает уже сохранённую сущность
+     * или null, если сохранена переданная.
+     */
+    default T putIfAbsent(Long id, T entity) {
+        return locked(id, () -> {
+            T existing = get(id);
+            return existing != null ? existing : put(id, entity);
+        });
+    }
+
+    /**
+     * Сохраняет пачку сущностей. Каждая запись атомарна сама по себе; реализации
+     * могут подтверждать пачку целиком, а не каждую запись отдельно.
+     */
+    default void putAll(Map<Long, T> entities) {
+        entities.forEach(this::save);
+    }
+
+    boolean containsKey(Long id);
+
+    Collection<T> values();
+
+    int size();
+
+    /**
+     * Атомарно применяет patch к сущности. Возвращает обновлённую сущность
+     * или null, если сущности с таким id нет. Сущность читают без замков, поэтому patch
+     * её не меняет, а возвращает изменённую копию.
+     */
+    T update(Long id, UnaryOperator<T> patch);
+
+    /**
+     * То же, но onChange вызывается под замком сущности при каждой смене сохранённого значения,
+     * которую вызвала эта запись: после patch — (прежнее, новое) и ещё раз, если хранилище потом
+     * откатывает запись, — (откатываемое, восстановленное; null, если сущности не было).
+     * Индексы, которые сервис ведёт в onChange, так и остаются согласованы с хранилищем.
+     */
+    default T update(Long id, UnaryOperator<T> patch, BiConsumer<T, T> onChange) {
+        return locked(id, () -> {
+            T before = get(id);
+            T updated = update(id, patch);
+            if (updated != null) {
+                onChange.accept(before, updated);
+            }
+            return updated;
+        });
+    }
+
+    /**
+     * Выполняет action под тем же замком, что и update/put/remove для данного id.
+     */
+    <R> R locked(Long id, Supplier<R> action);
+}
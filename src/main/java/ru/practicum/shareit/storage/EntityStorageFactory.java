@@ -0,0 +1,17 @@
+package ru.practicum.shareit.storage;
+
+public interface EntityStorageFactory {
+    /**
+     * Создаёт хранилище с именем name. afterRecovery вызывается после восстановления данных
+     * при старте, чтобы сервис перестроил свои индексы.
+     */
+    <T> EntityStorage<T> create(String name, EntityCodec<T> codec, Runnable afterRecovery);
+
+    /**
+     * То же, но реализация может хранить сущности записями фиксированного размера по layout.
+     */
+    default <T> EntityStorage<T> create(String name, EntityCodec<T> codec, RecordLayout<T> layout,
+                                        Runnable afterRecovery) {
+        return create(name, codec, afterRecovery);
+    }
+}
@@ -0,0 +1,97 @@
+package ru.practicum.shareit.storage;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Потокобезопасное хранилище сущностей. Чтение идёт без блокировок через ConcurrentHashMap,
+ * запись сериализуется только по «полосе» замков, в которую попадает id. Сохранённые объекты
+ * не меняются: update публикует новый объект, и читатель видит либо старую, либо новую версию целиком.
+ */
+public class InMemoryEntityStorage<T> implements EntityStorage<T> {
+    private static final int DEFAULT_STRIPES = 64;
+
+    private final Map<Long, T> entities = new ConcurrentHashMap<>();
+    private final AtomicLong idCounter = new AtomicLong(1);
+    private final StripedLocks stripes;
+
+    public InMemoryEntityStorage() {
+        this(DEFAULT_STRIPES);
+    }
+
+    public InMemoryEntityStorage(int stripeCount) {
+        stripes = new StripedLocks(stripeCount);
+    }
+
+    @Override
+    public long nextId() {
+        return idCounter.getAndIncrement();
+    }
+
+    public long peekNextId() {
+        return idCounter.get();
+    }
+
+    @Override
+    public void advanceNextId(long nextId) {
+        idCounter.accumulateAndGet(nextId, Math::max);
+    }
+
+    @Override
+    public T get(Long id) {
+        return entities.get(id);
+    }
+
+    @Override
+    public T put(Long id, T entity) {
+        return locked(id, () -> entities.put(id, entity));
+    }
+
+    @Override
+    public T remove(Long id) {
+        return locked(id, () -> entities.remove(id));
+    }
+
+    @Override
+    public boolean containsKey(Long id) {
+        return entities.containsKey(id);
+    }
+
+    @Override
+    public Collection<T> values() {
+        return Collections.unmodifiableCollection(entities.values());
+    }
+
+    public void forEach(BiConsumer<Long, T> action) {
+        entities.forEach(action);
+    }
+
+    @Override
+    public int size() {
+        return entities.size();
+    }
+
+    @Override
+    public T update(Long id, UnaryOperator<T> patch) {
+        return locked(id, () -> {
+            T existing = entities.get(id);
+            if (existing == null) {
+                return null;
+            }
+            T updated = patch.apply(existing);
+            entities.put(id, updated);
+            return updated;
+        });
+    }
+
+    @Override
+    public <R> R locked(Long id, Supplier<R> action) {
+        return stripes.locked(id, action);
+    }
+}
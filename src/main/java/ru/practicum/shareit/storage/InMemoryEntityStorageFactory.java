@@ -0,0 +1,14 @@
+package ru.practicum.shareit.storage;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(prefix = "shareit", name = {"persistence.enabled", "offheap.enabled"}, havingValue = "false",
+        matchIfMissing = true)
+public class InMemoryEntityStorageFactory implements EntityStorageFactory {
+    @Override
+    public <T> EntityStorage<T> create(String name, EntityCodec<T> codec, Runnable afterRecovery) {
+        return new InMemoryEntityStorage<>();
+    }
+}
@@ -0,0 +1,52 @@
+package ru.practicum.shareit.storage;
+
+import java.time.LocalDateTime;
+
+/**
+ * Раскладка сущности в запись фиксированного размера. Поля пишутся и читаются
+ * последовательно; строки хранятся отдельно, в записи остаётся только ссылка на них.
+ */
+public interface RecordLayout<T> {
+    int LONG = Long.BYTES;
+    int STRING = Long.BYTES;
+    int TIME = Long.BYTES + Integer.BYTES;
+    int BOOLEAN = Byte.BYTES;
+    int BYTE = Byte.BYTES;
+
+    /**
+     * Размер записи в байтах — сумма ширин полей.
+     */
+    int size();
+
+    void write(T entity, Writer out);
+
+    T read(Reader in);
+
+    interface Writer {
+        void writeLong(long value);
+
+        void writeNullableLong(Long value);
+
+        void writeString(String value);
+
+        void writeTime(LocalDateTime value);
+
+        void writeBoolean(Boolean value);
+
+        void writeByte(byte value);
+    }
+
+    interface Reader {
+        long readLong();
+
+        Long readNullableLong();
+
+        String readString();
+
+        LocalDateTime readTime();
+
+        Boolean readBoolean();
+
+        byte readByte();
+    }
+}
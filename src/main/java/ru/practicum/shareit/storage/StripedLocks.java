@@ -0,0 +1,38 @@
+package ru.practicum.shareit.storage;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Фиксированный набор замков, между которыми распределяются id сущностей.
+ */
+public final class StripedLocks {
+    private final ReentrantLock[] stripes;
+
+    public StripedLocks(int stripeCount) {
+        int size = 1;
+        while (size < stripeCount) {
+            size <<= 1;
+        }
+        stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public <R> R locked(long id, Supplier<R> action) {
+        ReentrantLock lock = stripeFor(id);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock stripeFor(long id) {
+        int h = Long.hashCode(id);
+        h ^= (h >>> 16);
+        return stripes[h & (stripes.length - 1)];
+    }
+}
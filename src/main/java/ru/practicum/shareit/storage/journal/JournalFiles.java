@@ -0,0 +1,65 @@
+package ru.practicum.shareit.storage.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Файлы журнала и снимков именуются как prefix + номер сегмента + suffix.
+ */
+final class JournalFiles {
+    private static final Logger log = LoggerFactory.getLogger(JournalFiles.class);
+
+    private JournalFiles() {
+    }
+
+    static Path path(Path directory, String prefix, long number, String suffix) {
+        return directory.resolve(String.format("%s%020d%s", prefix, number, suffix));
+    }
+
+    /**
+     * Делает надёжными создание, переименование и удаление файлов в каталоге. Там, где каталог
+     * нельзя открыть как файл (Windows), вызов ничего не делает.
+     */
+    static void syncDirectory(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException | UnsupportedOperationException e) {
+            log.debug("Cannot open directory {} to sync it", directory, e);
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    static NavigableMap<Long, Path> list(Path directory, String prefix, String suffix) throws IOException {
+        NavigableMap<Long, Path> result = new TreeMap<>();
+        if (!Files.isDirectory(directory)) {
+            return result;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                String name = file.getFileName().toString();
+                if (name.startsWith(prefix) && name.endsWith(suffix)) {
+                    try {
+                        result.put(Long.parseLong(name.substring(prefix.length(),
+                                name.length() - suffix.length())), file);
+                    } catch (NumberFormatException e) {
+                        log.warn("Ignoring unexpected file {}", file);
+                    }
+                }
+            });
+        }
+        return result;
+    }
+}
@@ -0,0 +1,346 @@
+package ru.practicum.shareit.storage.journal;
+
+import ru.practicum.shareit.storage.EntityCodec;
+import ru.practicum.shareit.storage.EntityStorage;
+import ru.practicum.shareit.storage.InMemoryEntityStorage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Хранилище в памяти, каждое изменение которого пишется в журнал.
+ * Запись ставится в очередь под замком сущности, поэтому порядок в журнале совпадает
+ * с порядком изменений; ожидание fsync идёт уже после снятия замка. Если запись
+ * в журнал не удалась, изменение откатывается, и в памяти не остаётся того, чего нет на диске;
+ * об откате обновления узнаёт его onChange.
+ */
+class JournaledEntityStorage<T> implements EntityStorage<T> {
+    static final byte PUT = 1;
+    static final byte REMOVE = 2;
+
+    private final String name;
+    private final EntityCodec<T> codec;
+    private final InMemoryEntityStorage<T> delegate = new InMemoryEntityStorage<>();
+    // Записи, которые уже применены, но ещё не стали надёжными: по ним откатывается сбой журнала
+    private final Map<Long, Pending<T>> pending = new ConcurrentHashMap<>();
+    private volatile WriteAheadLog wal;
+
+    JournaledEntityStorage(String name, EntityCodec<T> codec) {
+        this.name = name;
+        this.codec = codec;
+    }
+
+    String name() {
+        return name;
+    }
+
+    void attach(WriteAheadLog wal) {
+        this.wal = wal;
+    }
+
+    @Override
+    public long nextId() {
+        return delegate.nextId();
+    }
+
+    @Override
+    public void advanceNextId(long nextId) {
+        delegate.advanceNextId(nextId);
+    }
+
+    @Override
+    public T get(Long id) {
+        return delegate.get(id);
+    }
+
+    @Override
+    public T put(Long id, T entity) {
+        return await(id, delegate.locked(id, () -> {
+            CompletableFuture<Long> durable = append(PUT, id, entity);
+            T previous = delegate.put(id, entity);
+            return track(id, previous, previous, durable, null);
+        }));
+    }
+
+    @Override
+    public T putIfAbsent(Long id, T entity) {
+        return await(id, delegate.locked(id, () -> {
+            T existing = delegate.get(id);
+            if (existing != null) {
+                return new Pending<>(existing, null, null, null);
+            }
+            CompletableFuture<Long> durable = append(PUT, id, entity);
+            delegate.put(id, entity);
+            return track(id, null, null, durable, null);
+        }));
+    }
+
+    // Все записи ставятся в очередь сразу, fsync ожидается один раз на пачку
+    @Override
+    public void putAll(Map<Long, T> entities) {
+        Map<Long, Pending<T>> written = new LinkedHashMap<>(entities.size());
+        try {
+            entities.forEach((id, entity) -> written.put(id, delegate.locked(id, () -> {
+                CompletableFuture<Long> durable = append(PUT, id, entity);
+                T previous = delegate.put(id, entity);
+                return track(id, previous, previous, durable, null);
+            })));
+        } catch (RuntimeException e) {
+            // Уже поставленные записи всё равно нужно дождаться, чтобы снять их с цепочек
+            awaitAll(written);
+            throw e;
+        }
+        IllegalStateException failure = awaitAll(written);
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public T remove(Long id) {
+        return await(id, delegate.locked(id, () -> {
+            if (!delegate.containsKey(id)) {
+                return null;
+            }
+            CompletableFuture<Long> durable = append(REMOVE, id, null);
+            T removed = delegate.remove(id);
+            return track(id, removed, removed, durable, null);
+        }));
+    }
+
+    @Override
+    public boolean containsKey(Long id) {
+        return delegate.containsKey(id);
+    }
+
+    @Override
+    public Collection<T> values() {
+        return delegate.values();
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public T update(Long id, UnaryOperator<T> patch) {
+        return update(id, patch, null);
+    }
+
+    @Override
+    public T update(Long id, UnaryOperator<T> patch, BiConsumer<T, T> onChange) {
+        return await(id, delegate.locked(id, () -> {
+            T current = delegate.get(id);
+            if (current == null) {
+                return null;
+            }
+            T updated = patch.apply(current);
+            CompletableFuture<Long> durable = append(PUT, id, updated);
+            delegate.put(id, updated);
+            Pending<T> write = track(id, updated, current, durable, onChange);
+            if (onChange != null) {
+                onChange.accept(current, updated);
+            }
+            return write;
+        }));
+    }
+
+    @Override
+    public <R> R locked(Long id, Supplier<R> action) {
+        return delegate.locked(id, action);
+    }
+
+    /**
+     * Применяет запись журнала при восстановлении, минуя сам журнал.
+     */
+    void replay(byte operation, long id, DataInput in) throws IOException {
+        if (operation == PUT) {
+            delegate.put(id, codec.read(in));
+        } else {
+            delegate.remove(id);
+        }
+        delegate.advanceNextId(id + 1);
+    }
+
+    void writeSnapshot(DataOutput out) throws IOException {
+        out.writeLong(delegate.peekNextId());
+        try {
+            delegate.forEach((id, ignored) -> {
+                // Каждая сущность кодируется под своим замком, чтобы не поймать её на середине обновления
+                byte[] bytes = delegate.locked(id, () -> {
+                    T current = delegate.get(id);
+                    return current != null ? encode(current) : null;
+                });
+                if (bytes == null) {
+                    return;
+                }
+                try {
+                    out.writeBoolean(true);
+                    out.writeLong(id);
+                    out.write(bytes);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.writeBoolean(false);
+    }
+
+    long readSnapshot(DataInput in) throws IOException {
+        delegate.advanceNextId(in.readLong());
+        long count = 0;
+        while (in.readBoolean()) {
+            long id = in.readLong();
+            delegate.put(id, codec.read(in));
+            delegate.advanceNextId(id + 1);
+            count++;
+        }
+        return count;
+    }
+
+    private CompletableFuture<Long> append(byte operation, long id, T entity) {
+        WriteAheadLog log = wal;
+        if (log == null) {
+            throw new IllegalStateException("Storage '" + name + "' is not open for writes yet");
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeByte(operation);
+            out.writeUTF(name);
+            out.writeLong(id);
+            if (entity != null) {
+                codec.write(entity, out);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return log.append(buffer.toByteArray());
+    }
+
+    private byte[] encode(T entity) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            codec.write(entity, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    // Вызывается под замком сущности: запись встаёт в конец цепочки ещё не подтверждённых записей по id
+    private Pending<T> track(Long id, T result, T before, CompletableFuture<Long> durable,
+                             BiConsumer<T, T> onChange) {
+        Pending<T> write = new Pending<>(result, before, durable, onChange);
+        Pending<T> tail = pending.put(id, write);
+        if (tail != null) {
+            write.previous = tail;
+            tail.next = write;
+        }
+        return write;
+    }
+
+    private T await(Long id, Pending<T> write) {
+        if (write == null) {
+            return null;
+        }
+        if (write.durable == null) {
+            return write.result;
+        }
+        Throwable failure = null;
+        try {
+            write.durable.join();
+        } catch (CompletionException e) {
+            failure = e.getCause();
+        }
+        boolean failed = failure != null;
+        delegate.locked(id, () -> {
+            settle(id, write, failed);
+            return null;
+        });
+        if (failed) {
+            throw new IllegalStateException("Failed to write journal record", failure);
+        }
+        return write.result;
+    }
+
+    private IllegalStateException awaitAll(Map<Long, Pending<T>> written) {
+        IllegalStateException failure = null;
+        for (Map.Entry<Long, Pending<T>> entry : written.entrySet()) {
+            try {
+                await(entry.getKey(), entry.getValue());
+            } catch (IllegalStateException e) {
+                failure = failure == null ? e : failure;
+            }
+        }
+        return failure;
+    }
+
+    /**
+     * Снимает запись с цепочки. Надёжная запись делает откат более ранних ненужным. Неудачную
+     * нужно откатить, если её не перекрыла надёжная: если за ней есть ещё не подтверждённая,
+     * та получает её исходное состояние, иначе оно сразу возвращается в хранилище.
+     */
+    private void settle(Long id, Pending<T> write, boolean failed) {
+        if (!failed) {
+            for (Pending<T> earlier = write.previous; earlier != null; earlier = earlier.previous) {
+                earlier.superseded = true;
+            }
+        } else if (!write.superseded) {
+            if (write.next != null) {
+                write.next.before = write.before;
+            } else {
+                T replaced = write.before != null ? delegate.put(id, write.before) : delegate.remove(id);
+                if (write.onChange != null) {
+                    write.onChange.accept(replaced, write.before);
+                }
+            }
+        }
+
+        if (write.previous != null) {
+            write.previous.next = write.next;
+        }
+        if (write.next != null) {
+            write.next.previous = write.previous;
+        } else if (write.previous != null) {
+            pending.put(id, write.previous);
+        } else {
+            pending.remove(id);
+        }
+    }
+
+
+    // Поля меняются только под замком сущности
+    private static final class Pending<T> {
+        private final T result;
+        private final CompletableFuture<Long> durable;
+        // Откат сообщается тому, кто вёл по записи индексы
+        private final BiConsumer<T, T> onChange;
+        private T before;
+        private Pending<T> previous;
+        private Pending<T> next;
+        private boolean superseded;
+
+        private Pending(T result, T before, CompletableFuture<Long> durable, BiConsumer<T, T> onChange) {
+            this.result = result;
+            this.before = before;
+            this.durable = durable;
+            this.onChange = onChange;
+        }
+    }
+}
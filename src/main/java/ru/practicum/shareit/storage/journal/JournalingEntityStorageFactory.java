@@ -0,0 +1,227 @@
+package ru.practicum.shareit.storage.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.storage.EntityCodec;
+import ru.practicum.shareit.storage.EntityStorage;
+import ru.practicum.shareit.storage.EntityStorageFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Хранилища с журналом и снимками. При старте загружает последний целый снимок и
+ * проигрывает хвост журнала, затем открывает новый сегмент и периодически пишет снимки.
+ * Оборванная запись допустима только в конце последнего сегмента (падение до fsync):
+ * такой хвост отрезается. Порча раньше означает потерю подтверждённых записей, и старт прерывается.
+ */
+@Component
+// Вместе с shareit.offheap не поднимается: о несовместимости сообщает MappedEntityStorageFactory
+@ConditionalOnExpression("${shareit.persistence.enabled:false} and !${shareit.offheap.enabled:false}")
+public class JournalingEntityStorageFactory implements EntityStorageFactory, SmartInitializingSingleton,
+        DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(JournalingEntityStorageFactory.class);
+
+    private final PersistenceProperties properties;
+    private final Path directory;
+    private final Map<String, JournaledEntityStorage<?>> storages = new LinkedHashMap<>();
+    private final List<Runnable> recoveryCallbacks = new ArrayList<>();
+    private final ReentrantLock registrationLock = new ReentrantLock();
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    private WriteAheadLog wal;
+    private ScheduledExecutorService scheduler;
+
+    public JournalingEntityStorageFactory(PersistenceProperties properties) {
+        this.properties = properties;
+        this.directory = properties.directory();
+    }
+
+    @Override
+    public <T> EntityStorage<T> create(String name, EntityCodec<T> codec, Runnable afterRecovery) {
+        registrationLock.lock();
+        try {
+            if (wal != null) {
+                throw new IllegalStateException("Storage '" + name + "' must be created before recovery");
+            }
+            if (storages.containsKey(name)) {
+                throw new IllegalStateException("Storage '" + name + "' already exists");
+            }
+            JournaledEntityStorage<T> storage = new JournaledEntityStorage<>(name, codec);
+            storages.put(name, storage);
+            recoveryCallbacks.add(afterRecovery);
+            return storage;
+        } finally {
+            registrationLock.unlock();
+        }
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            Files.createDirectories(directory);
+            long started = System.nanoTime();
+            long segment = recover();
+            recoveryCallbacks.forEach(Runnable::run);
+
+            wal = new WriteAheadLog(directory, segment, properties.maxBatchSize());
+            storages.values().forEach(storage -> storage.attach(wal));
+
+            log.info("Recovered {} in {} ms, writing to segment {} in {}",
+                    describeSizes(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started),
+                    segment, directory.toAbsolutePath());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to recover data from " + directory, e);
+        }
+
+        long interval = properties.snapshotInterval().toMillis();
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("wal-snapshot").daemon().factory());
+        scheduler.scheduleWithFixedDelay(this::snapshotQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Пишет снимок и удаляет журнал и снимки, которые он покрывает.
+     */
+    public void snapshot() throws IOException {
+        snapshotLock.lock();
+        try {
+            if (wal.currentSegmentSize() == 0) {
+                log.debug("No changes since the last snapshot");
+                return;
+            }
+            long started = System.nanoTime();
+            long segment = wal.rotate();
+            SnapshotFile.write(directory, segment, storages.values());
+            SnapshotFile.deleteBefore(directory, segment);
+            WriteAheadLog.deleteSegmentsBefore(directory, segment);
+            log.info("Wrote snapshot {} ({}) in {} ms", segment, describeSizes(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (wal != null) {
+            snapshotQuietly();
+            wal.close();
+        }
+    }
+
+    private long recover() throws IOException {
+        NavigableMap<Long, Path> allSegments = WriteAheadLog.segments(directory);
+        long first = 1;
+        Long corrupted = null;
+        NavigableMap<Long, Path> snapshots = SnapshotFile.list(directory);
+        for (Map.Entry<Long, Path> snapshot : snapshots.descendingMap().entrySet()) {
+            if (SnapshotFile.read(snapshot.getValue(), storages)) {
+                first = snapshot.getKey();
+                log.info("Loaded snapshot {}", snapshot.getValue());
+                break;
+            }
+            corrupted = corrupted == null ? snapshot.getKey() : corrupted;
+        }
+        // Более старое состояние годится, только если журнал от него до повреждённого снимка сохранился:
+        // снимок удаляет всё, что покрывает
+        if (corrupted != null) {
+            long missing = firstMissing(allSegments, first, corrupted);
+            if (missing < corrupted) {
+                throw new IllegalStateException("Snapshot " + snapshots.get(corrupted) + " is corrupted and"
+                        + " write-ahead log segment " + missing + " it covers has already been deleted");
+            }
+            log.warn("Snapshot {} is corrupted, replaying the log from segment {} instead",
+                    snapshots.get(corrupted), first);
+        }
+
+        NavigableMap<Long, Path> replayed = allSegments.tailMap(first, true);
+        long gap = replayed.isEmpty() ? first : firstMissing(replayed, first, replayed.lastKey());
+        if (!replayed.isEmpty() && gap < replayed.lastKey()) {
+            throw new IllegalStateException("Write-ahead log segment " + gap + " is missing in " + directory);
+        }
+
+        long next = first;
+        List<Map.Entry<Long, Path>> segments = new ArrayList<>(replayed.entrySet());
+        for (int i = 0; i < segments.size(); i++) {
+            Path file = segments.get(i).getValue();
+            boolean last = i == segments.size() - 1;
+            long limit = last ? Long.MAX_VALUE : WriteAheadLog.cutOf(segments.get(i + 1).getValue());
+            WriteAheadLog.Replay replay = WriteAheadLog.replay(file, limit, this::apply);
+            if (!replay.complete()) {
+                if (!last) {
+                    throw new IllegalStateException("Corrupted write-ahead log record in " + file + " at offset "
+                            + replay.validLength() + " is followed by later segments");
+                }
+                log.warn("Discarding incomplete tail of {} after {} bytes", file, replay.validLength());
+                WriteAheadLog.truncate(file, replay.validLength());
+            }
+            log.debug("Replayed {} records from {}", replay.records(), file);
+            next = segments.get(i).getKey() + 1;
+        }
+        return next;
+    }
+
+    // Первый номер в [from, to), для которого нет сегмента, или to, если все на месте
+    private static long firstMissing(NavigableMap<Long, Path> segments, long from, long to) {
+        for (long number = from; number < to; number++) {
+            if (!segments.containsKey(number)) {
+                return number;
+            }
+        }
+        return to;
+    }
+
+    private void apply(byte[] record) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+            byte operation = in.readByte();
+            String name = in.readUTF();
+            long id = in.readLong();
+            JournaledEntityStorage<?> storage = storages.get(name);
+            if (storage == null) {
+                throw new IllegalStateException("Journal record for unknown storage '" + name + "'");
+            }
+            storage.replay(operation, id, in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (Exception e) {
+            log.error("Failed to write snapshot", e);
+        }
+    }
+
+    private String describeSizes() {
+        StringBuilder result = new StringBuilder();
+        storages.values().forEach(storage -> {
+            if (!result.isEmpty()) {
+                result.append(", ");
+            }
+            result.append(storage.name()).append('=').append(storage.size());
+        });
+        return result.toString();
+    }
+}
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.storage.journal;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "shareit.persistence")
+public record PersistenceProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("data") Path directory,
+        @DefaultValue("10m") Duration snapshotInterval,
+        @DefaultValue("4096") int maxBatchSize
+) {
+}
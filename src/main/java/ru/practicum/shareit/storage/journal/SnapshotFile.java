@@ -0,0 +1,129 @@
+package ru.practicum.shareit.storage.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Снимок snapshot-N.bin содержит состояние всех хранилищ, включающее все записи
+ * сегментов журнала с номерами меньше N. Файл заканчивается CRC32 всего содержимого.
+ */
+final class SnapshotFile {
+    private static final Logger log = LoggerFactory.getLogger(SnapshotFile.class);
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+    private static final int MAGIC = 0x53484954;
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private SnapshotFile() {
+    }
+
+    static NavigableMap<Long, Path> list(Path directory) throws IOException {
+        return JournalFiles.list(directory, PREFIX, SUFFIX);
+    }
+
+    static void write(Path directory, long segment, Collection<JournaledEntityStorage<?>> storages)
+            throws IOException {
+        Path target = JournalFiles.path(directory, PREFIX, segment, SUFFIX);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            OutputStream file = new BufferedOutputStream(Channels.newOutputStream(channel),
+                    BUFFER_SIZE);
+            CheckedOutputStream checked = new CheckedOutputStream(file, new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for (JournaledEntityStorage<?> storage : storages) {
+                out.writeBoolean(true);
+                out.writeUTF(storage.name());
+                storage.writeSnapshot(out);
+            }
+            out.writeBoolean(false);
+            out.flush();
+            new DataOutputStream(file).writeLong(checked.getChecksum().getValue());
+            file.flush();
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        JournalFiles.syncDirectory(directory);
+    }
+
+    /**
+     * Проверяет контрольную сумму и загружает снимок в хранилища.
+     *
+     * @return false, если файл повреждён; хранилища в этом случае не изменяются
+     */
+    static boolean read(Path file, Map<String, JournaledEntityStorage<?>> storages) throws IOException {
+        if (!hasValidChecksum(file)) {
+            log.warn("Snapshot {} is corrupted", file);
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file),
+                BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                log.warn("Snapshot {} has an unknown format", file);
+                return false;
+            }
+            while (in.readBoolean()) {
+                String name = in.readUTF();
+                JournaledEntityStorage<?> storage = storages.get(name);
+                if (storage == null) {
+                    throw new IOException("Snapshot " + file + " contains unknown storage '" + name + "'");
+                }
+                long count = storage.readSnapshot(in);
+                log.debug("Loaded {} entities into '{}' from {}", count, name, file);
+            }
+        }
+        return true;
+    }
+
+    static void deleteBefore(Path directory, long segment) throws IOException {
+        for (Path file : list(directory).headMap(segment, false).values()) {
+            Files.deleteIfExists(file);
+        }
+        JournalFiles.syncDirectory(directory);
+    }
+
+    private static boolean hasValidChecksum(Path file) throws IOException {
+        long size = Files.size(file);
+        if (size < Long.BYTES) {
+            return false;
+        }
+        try (InputStream raw = new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE)) {
+            CheckedInputStream checked = new CheckedInputStream(raw, new CRC32());
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long remaining = size - Long.BYTES;
+            while (remaining > 0) {
+                int read = checked.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    return false;
+                }
+                remaining -= read;
+            }
+            long expected = new DataInputStream(raw).readLong();
+            return checked.getChecksum().getValue() == expected;
+        }
+    }
+}
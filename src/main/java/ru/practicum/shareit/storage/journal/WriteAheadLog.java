@@ -0,0 +1,375 @@
+package ru.practicum.shareit.storage.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал упреждающей записи, разбитый на сегменты wal-N.log.
+ * Все записи пишет один поток: он забирает из очереди всё, что накопилось, пишет пачкой
+ * и делает один fsync на пачку (group commit). Вызывающий ждёт future, пока запись не станет надёжной.
+ * Формат записи: длина (int), CRC32 (int), данные.
+ * Если пачку записать не удалось, сегмент обрезается до последней целой записи. Если не удаётся
+ * и это, журнал переходит в новый сегмент, который начинается с отметки CUT (int), 0 (int),
+ * длина (long): при восстановлении предыдущий сегмент читается только до этой длины.
+ */
+public class WriteAheadLog implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(WriteAheadLog.class);
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int FRAME_HEADER = 8;
+    private static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+    private static final int CUT = -1;
+    private static final int CUT_SIZE = FRAME_HEADER + Long.BYTES;
+
+    private final Path directory;
+    private final int maxBatchSize;
+    private final SegmentOpener opener;
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean closed;
+    private volatile long segmentSize;
+    private FileChannel channel;
+    private long segment;
+    // Длина целой части текущего сегмента, если хвост после неудачной записи обрезать не удалось, иначе -1
+    private long damagedAt = -1;
+
+    public WriteAheadLog(Path directory, long firstSegment, int maxBatchSize) throws IOException {
+        this(directory, firstSegment, maxBatchSize,
+                file -> FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE));
+    }
+
+    WriteAheadLog(Path directory, long firstSegment, int maxBatchSize, SegmentOpener opener) throws IOException {
+        this.directory = directory;
+        this.maxBatchSize = maxBatchSize;
+        this.opener = opener;
+        openSegment(firstSegment);
+        this.writer = Thread.ofPlatform().name("wal-writer").daemon().start(this::run);
+    }
+
+    /**
+     * Ставит запись в очередь. Future завершается номером сегмента после fsync.
+     */
+    public CompletableFuture<Long> append(byte[] payload) {
+        return submit(new Request(Kind.APPEND, payload));
+    }
+
+    /**
+     * Закрывает текущий сегмент и открывает следующий. Возвращает номер нового сегмента:
+     * все записи, поставленные в очередь после возврата, попадут в него или в более поздние.
+     */
+    public long rotate() {
+        return submit(new Request(Kind.ROTATE, null)).join();
+    }
+
+    public long currentSegmentSize() {
+        return segmentSize;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        CompletableFuture<Long> done = submit(new Request(Kind.CLOSE, null));
+        closed = true;
+        done.join();
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static NavigableMap<Long, Path> segments(Path directory) throws IOException {
+        return JournalFiles.list(directory, SEGMENT_PREFIX, SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Читает записи сегмента по порядку, но не дальше limit байт. Чтение останавливается на первой
+     * неполной или повреждённой записи; complete в результате говорит, дочитан ли сегмент до конца
+     * (или до limit). Решать, хвост ли это, не дождавшийся fsync, или порча в середине, — вызывающему.
+     */
+    public static Replay replay(Path file, long limit, Consumer<byte[]> consumer) throws IOException {
+        long records = 0;
+        long position = 0;
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 20))) {
+            while (position < limit) {
+                byte[] payload;
+                int checksum;
+                try {
+                    int length;
+                    try {
+                        length = in.readInt();
+                    } catch (EOFException e) {
+                        return new Replay(records, position, true);
+                    }
+                    checksum = in.readInt();
+                    if (length == CUT && position == 0) {
+                        in.readLong();
+                        position += CUT_SIZE;
+                        continue;
+                    }
+                    if (length < 0 || length > MAX_RECORD_SIZE || position + FRAME_HEADER + length > limit) {
+                        log.warn("Corrupted record length {} in {} after {} records", length, file, records);
+                        return new Replay(records, position, false);
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    log.warn("Incomplete record in {} after {} records", file, records);
+                    return new Replay(records, position, false);
+                }
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    log.warn("Checksum mismatch in {} after {} records", file, records);
+                    return new Replay(records, position, false);
+                }
+                consumer.accept(payload);
+                records++;
+                position += FRAME_HEADER + payload.length;
+            }
+        }
+        return new Replay(records, position, true);
+    }
+
+    /**
+     * Длина, до которой читается предыдущий сегмент, по отметке в начале этого, или Long.MAX_VALUE.
+     */
+    public static long cutOf(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            if (in.readInt() != CUT) {
+                return Long.MAX_VALUE;
+            }
+            in.readInt();
+            return in.readLong();
+        } catch (EOFException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Обрезает сегмент до length байт, например чтобы убрать оборванный хвост после падения.
+     */
+    public static void truncate(Path file, long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+            channel.force(true);
+        }
+    }
+
+    public static void deleteSegmentsBefore(Path directory, long segment) throws IOException {
+        for (Path file : segments(directory).headMap(segment, false).values()) {
+            Files.deleteIfExists(file);
+        }
+        JournalFiles.syncDirectory(directory);
+    }
+
+    private CompletableFuture<Long> submit(Request request) {
+        if (closed) {
+            throw new IllegalStateException("Write-ahead log is closed");
+        }
+        queue.add(request);
+        return request.done;
+    }
+
+    private void run() {
+        List<Request> batch = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            queue.drainTo(batch, maxBatchSize - 1);
+            running = process(batch);
+            batch.clear();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close write-ahead log segment {}", segment, e);
+        }
+    }
+
+    private boolean process(List<Request> batch) {
+        List<Request> pending = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            Request request = batch.get(i);
+            switch (request.kind) {
+                case APPEND -> pending.add(request);
+                case ROTATE -> {
+                    flush(pending);
+                    try {
+                        openSegment(segment + 1);
+                        request.done.complete(segment);
+                    } catch (IOException e) {
+                        request.done.completeExceptionally(new UncheckedIOException(e));
+                    }
+                }
+                case CLOSE -> {
+                    flush(pending);
+                    request.done.complete(segment);
+                    List<Request> rejected = new ArrayList<>(batch.subList(i + 1, batch.size()));
+                    queue.drainTo(rejected);
+                    rejected.forEach(r -> r.done.completeExceptionally(
+                            new IllegalStateException("Write-ahead log is closed")));
+                    return false;
+                }
+            }
+        }
+        flush(pending);
+        return true;
+    }
+
+    private void flush(List<Request> pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        if (damagedAt >= 0) {
+            // Дописывать за оборванную пачку нельзя: при восстановлении чтение остановится на ней
+            try {
+                openSegment(segment + 1);
+            } catch (IOException e) {
+                fail(pending, e);
+                return;
+            }
+        }
+        int size = 0;
+        for (Request request : pending) {
+            size += FRAME_HEADER + request.payload.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        CRC32 crc = new CRC32();
+        for (Request request : pending) {
+            crc.reset();
+            crc.update(request.payload);
+            buffer.putInt(request.payload.length);
+            buffer.putInt((int) crc.getValue());
+            buffer.put(request.payload);
+        }
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            segmentSize += size;
+            for (Request request : pending) {
+                request.done.complete(segment);
+            }
+        } catch (IOException e) {
+            log.error("Failed to write {} records to write-ahead log segment {}", pending.size(), segment, e);
+            fail(pending, e);
+            discardTail();
+        }
+        pending.clear();
+    }
+
+    private void fail(List<Request> pending, IOException e) {
+        for (Request request : pending) {
+            request.done.completeExceptionally(new UncheckedIOException(e));
+        }
+        pending.clear();
+    }
+
+    // Убирает часть неудачной пачки, успевшую попасть в файл, чтобы следующие записи шли сразу за целыми
+    private void discardTail() {
+        try {
+            channel.truncate(segmentSize);
+            channel.position(segmentSize);
+            channel.force(true);
+        } catch (IOException e) {
+            log.error("Failed to truncate write-ahead log segment {} to {} bytes, switching to the next segment",
+                    segment, segmentSize, e);
+            damagedAt = segmentSize;
+            try {
+                openSegment(segment + 1);
+            } catch (IOException next) {
+                log.error("Failed to open write-ahead log segment {}, will retry on the next write",
+                        segment + 1, next);
+            }
+        }
+    }
+
+    private void openSegment(long number) throws IOException {
+        FileChannel next = opener.open(JournalFiles.path(directory, SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+        JournalFiles.syncDirectory(directory);
+        long size = 0;
+        if (damagedAt >= 0) {
+            ByteBuffer cut = ByteBuffer.allocate(CUT_SIZE).putInt(CUT).putInt(0).putLong(damagedAt).flip();
+            try {
+                while (cut.hasRemaining()) {
+                    next.write(cut);
+                }
+                next.force(true);
+            } catch (IOException e) {
+                next.close();
+                Files.deleteIfExists(JournalFiles.path(directory, SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+                throw e;
+            }
+            size = CUT_SIZE;
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close write-ahead log segment {}", segment, e);
+            }
+        }
+        channel = next;
+        segment = number;
+        segmentSize = size;
+        damagedAt = -1;
+        log.debug("Opened write-ahead log segment {}", number);
+    }
+
+    /**
+     * Итог чтения сегмента: сколько записей применено и сколько байт от начала файла они занимают.
+     */
+    public record Replay(long records, long validLength, boolean complete) {
+    }
+
+    // Открытие файла сегмента; подменяется в тестах, чтобы сымитировать сбой записи
+    interface SegmentOpener {
+        FileChannel open(Path file) throws IOException;
+    }
+
+    private enum Kind {
+        APPEND, ROTATE, CLOSE
+    }
+
+    private static final class Request {
+        private final Kind kind;
+        private final byte[] payload;
+        private final CompletableFuture<Long> done = new CompletableFuture<>();
+
+        private Request(Kind kind, byte[] payload) {
+            this.kind = kind;
+            this.payload = payload;
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package ru.practicum.shareit.storage.mapped;
+
+import ru.practicum.shareit.storage.EntityStorage;
+import ru.practicum.shareit.storage.RecordLayout;
+import ru.practicum.shareit.storage.StripedLocks;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.LongStream;
+
+/**
+ * Хранилище, в котором сущности лежат вне кучи: запись фиксированного размера на каждый id
+ * в отображённом файле плюс строки в {@link StringArena}. Сущность собирается из записи
+ * при каждом чтении и в куче не удерживается.
+ * Запись меняется под замком полосы; чтение идёт без замка по версии в заголовке записи
+ * (seqlock): нечётная версия — запись в процессе, изменившаяся версия — чтение повторяется.
+ * После нескольких неудачных попыток чтение берёт замок.
+ */
+class MappedEntityStorage<T> implements EntityStorage<T>, Closeable {
+    private static final int RECORDS_PER_CHUNK = 1 << 16;
+    private static final int STRIPES = 64;
+    private static final byte EMPTY = 0;
+    private static final byte PRESENT = 1;
+    // Заголовок записи: версия (int) и признак занятости слота (byte), выровнено до 8 байт
+    private static final int HEADER = 8;
+    private static final int PRESENCE = Integer.BYTES;
+    private static final int OPTIMISTIC_READS = 4;
+    private static final VarHandle VERSION = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    private final RecordLayout<T> layout;
+    private final int recordSize;
+    private final MappedFile records;
+    private final StringArena strings;
+    private final StripedLocks stripes = new StripedLocks(STRIPES);
+    private final AtomicLong idCounter = new AtomicLong(1);
+    private final AtomicLong highestId = new AtomicLong();
+    private final AtomicInteger count = new AtomicInteger();
+
+    MappedEntityStorage(Path directory, String name, RecordLayout<T> layout) throws IOException {
+        this.layout = layout;
+        // Размер кратен 8, чтобы версия в заголовке была выровнена для атомарного доступа
+        this.recordSize = (HEADER + layout.size() + Long.BYTES - 1) & -Long.BYTES;
+        this.records = new MappedFile(directory.resolve(name + ".records"), recordSize * RECORDS_PER_CHUNK);
+        this.strings = new StringArena(directory.resolve(name + ".strings"));
+    }
+
+    @Override
+    public long nextId() {
+        return idCounter.getAndIncrement();
+    }
+
+    @Override
+    public void advanceNextId(long nextId) {
+        idCounter.accumulateAndGet(nextId, Math::max);
+    }
+
+    @Override
+    public T get(Long id) {
+        if (!inRange(id)) {
+            return null;
+        }
+        return readOptimistically(id, this::read);
+    }
+
+    @Override
+    public T put(Long id, T entity) {
+        checkId(id);
+        return locked(id, () -> {
+            T previous = read(id);
+            write(id, entity);
+            return previous;
+        });
+    }
+
+    // В отличие от put, прежнее значение не собирается из записи
+    @Override
+    public void save(Long id, T entity) {
+        checkId(id);
+        locked(id, () -> {
+            write(id, entity);
+            return null;
+        });
+    }
+
+    @Override
+    public T remove(Long id) {
+        if (!inRange(id)) {
+            return null;
+        }
+        return locked(id, () -> {
+            T previous = read(id);
+            if (previous != null) {
+                ByteBuffer chunk = chunkOf(id);
+                int position = positionOf(id);
+                int version = beginWrite(chunk, position);
+                layout.read(new ReleasingReader(chunk, position + HEADER));
+                chunk.put(position + PRESENCE, EMPTY);
+                endWrite(chunk, position, version);
+                count.decrementAndGet();
+            }
+            return previous;
+        });
+    }
+
+    @Override
+    public boolean containsKey(Long id) {
+        return inRange(id) && readOptimistically(id, this::present);
+    }
+
+    // Ленивый обход слотов: сущности собираются по одной, в кучу целиком не копируются
+    @Override
+    public Collection<T> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<T> iterator() {
+                return LongStream.rangeClosed(1, highestId.get())
+                        .mapToObj(MappedEntityStorage.this::get)
+                        .filter(Objects::nonNull)
+                        .iterator();
+            }
+
+            @Override
+            public int size() {
+                return count.get();
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return count.get();
+    }
+
+    @Override
+    public T update(Long id, UnaryOperator<T> patch) {
+        if (!inRange(id)) {
+            return null;
+        }
+        return locked(id, () -> {
+            T existing = read(id);
+            if (existing == null) {
+                return null;
+            }
+            T updated = patch.apply(existing);
+            write(id, updated);
+            return updated;
+        });
+    }
+
+    @Override
+    public <R> R locked(Long id, Supplier<R> action) {
+        return stripes.locked(id, action);
+    }
+
+    @Override
+    public void close() throws IOException {
+        records.close();
+        strings.close();
+    }
+
+    /**
+     * Читает слот без замка и проверяет, что версия записи не изменилась за время чтения.
+     * Исключение при чтении (например, по устаревшей ссылке на строку) тоже означает повтор.
+     */
+    private <R> R readOptimistically(long id, Function<Long, R> reader) {
+        ByteBuffer chunk = chunkOf(id);
+        int position = positionOf(id);
+        for (int attempt = 0; attempt < OPTIMISTIC_READS; attempt++) {
+            int version = (int) VERSION.getAcquire(chunk, position);
+            if ((version & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            R value;
+            try {
+                value = reader.apply(id);
+            } catch (RuntimeException e) {
+                VarHandle.loadLoadFence();
+                if ((int) VERSION.get(chunk, position) == version) {
+                    throw e;
+                }
+                continue;
+            }
+            VarHandle.loadLoadFence();
+            if ((int) VERSION.get(chunk, position) == version) {
+                return value;
+            }
+        }
+        return locked(id, () -> reader.apply(id));
+    }
+
+    private boolean present(long id) {
+        return chunkOf(id).get(positionOf(id) + PRESENCE) == PRESENT;
+    }
+
+    private T read(long id) {
+        ByteBuffer chunk = chunkOf(id);
+        int position = positionOf(id);
+        if (chunk.get(position + PRESENCE) != PRESENT) {
+            return null;
+        }
+        return layout.read(new MappedRecord(chunk, position + HEADER, strings));
+    }
+
+    /**
+     * Вызывается под замком полосы. Если запись не удалась (например, строка не поместилась в арену),
+     * слот возвращается к прежнему значению, а версия всё равно становится чётной.
+     */
+    private void write(long id, T entity) {
+        ByteBuffer chunk = chunkOf(id);
+        int position = positionOf(id);
+        boolean replacing = chunk.get(position + PRESENCE) == PRESENT;
+        // Пустой слот восстанавливать не нужно: без признака занятости его поля не читаются
+        byte[] previous = replacing ? new byte[recordSize - HEADER] : null;
+        if (replacing) {
+            chunk.get(position + HEADER, previous);
+        }
+        MappedRecord record = new MappedRecord(chunk, position + HEADER, strings, replacing);
+        int version = beginWrite(chunk, position);
+        try {
+            layout.write(entity, record);
+            chunk.put(position + PRESENCE, PRESENT);
+        } catch (RuntimeException e) {
+            if (replacing) {
+                chunk.put(position + HEADER, previous);
+            }
+            record.rollback();
+            throw e;
+        } finally {
+            endWrite(chunk, position, version);
+        }
+        record.commit();
+        if (!replacing) {
+            count.incrementAndGet();
+            highestId.accumulateAndGet(id, Math::max);
+        }
+    }
+
+    private static int beginWrite(ByteBuffer chunk, int position) {
+        int version = (int) VERSION.get(chunk, position);
+        VERSION.setOpaque(chunk, position, version + 1);
+        // Нечётная версия должна стать видна раньше, чем любое изменённое поле
+        VarHandle.storeStoreFence();
+        return version;
+    }
+
+    private static void endWrite(ByteBuffer chunk, int position, int version) {
+        VERSION.setRelease(chunk, position, version + 2);
+    }
+
+    private static void checkId(Long id) {
+        if (id == null || id < 1) {
+            throw new IllegalArgumentException("Entity id must be positive: " + id);
+        }
+    }
+
+    private boolean inRange(Long id) {
+        return id != null && id >= 1 && id <= highestId.get();
+    }
+
+    private ByteBuffer chunkOf(long id) {
+        return records.chunk((int) ((id - 1) / RECORDS_PER_CHUNK));
+    }
+
+    private int positionOf(long id) {
+        return (int) ((id - 1) % RECORDS_PER_CHUNK) * recordSize;
+    }
+
+    /**
+     * Проходит по полям записи только затем, чтобы вернуть её строки в арену.
+     */
+    private class ReleasingReader implements RecordLayout.Reader {
+        private final ByteBuffer chunk;
+        private int position;
+
+        ReleasingReader(ByteBuffer chunk, int position) {
+            this.chunk = chunk;
+            this.position = position;
+        }
+
+        @Override
+        public long readLong() {
+            position += RecordLayout.LONG;
+            return 0;
+        }
+
+        @Override
+        public Long readNullableLong() {
+            position += RecordLayout.LONG;
+            return null;
+        }
+
+        @Override
+        public String readString() {
+            strings.release(chunk.getLong(position));
+            position += RecordLayout.STRING;
+            return null;
+        }
+
+        @Override
+        public LocalDateTime readTime() {
+            position += RecordLayout.TIME;
+            return null;
+        }
+
+        @Override
+        public Boolean readBoolean() {
+            position += RecordLayout.BOOLEAN;
+            return null;
+        }
+
+        @Override
+        public byte readByte() {
+            position += RecordLayout.BYTE;
+            return 0;
+        }
+    }
+}
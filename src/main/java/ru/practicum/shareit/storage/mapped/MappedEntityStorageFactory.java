@@ -0,0 +1,81 @@
+package ru.practicum.shareit.storage.mapped;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.storage.EntityCodec;
+import ru.practicum.shareit.storage.EntityStorage;
+import ru.practicum.shareit.storage.EntityStorageFactory;
+import ru.practicum.shareit.storage.InMemoryEntityStorage;
+import ru.practicum.shareit.storage.RecordLayout;
+import ru.practicum.shareit.storage.journal.PersistenceProperties;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Хранилища вне кучи для сущностей, у которых есть раскладка в запись фиксированного размера.
+ * Файлы служат только памятью: при старте они создаются заново, при остановке удаляются.
+ */
+@Component
+@ConditionalOnProperty(prefix = "shareit.offheap", name = "enabled", havingValue = "true")
+public class MappedEntityStorageFactory implements EntityStorageFactory, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(MappedEntityStorageFactory.class);
+
+    private final OffHeapProperties properties;
+    private final List<MappedEntityStorage<?>> storages = new ArrayList<>();
+    // ReentrantLock, а не synchronized: создание файла не должно закреплять виртуальный поток за несущим
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public MappedEntityStorageFactory(OffHeapProperties properties, PersistenceProperties persistence) {
+        if (persistence.enabled()) {
+            throw new IllegalStateException("shareit.offheap and shareit.persistence cannot be enabled together");
+        }
+        this.properties = properties;
+    }
+
+    @Override
+    public <T> EntityStorage<T> create(String name, EntityCodec<T> codec, Runnable afterRecovery) {
+        return new InMemoryEntityStorage<>();
+    }
+
+    @Override
+    public <T> EntityStorage<T> create(String name, EntityCodec<T> codec, RecordLayout<T> layout,
+                                       Runnable afterRecovery) {
+        lock.lock();
+        try {
+            Files.createDirectories(properties.directory());
+            MappedEntityStorage<T> storage = new MappedEntityStorage<>(properties.directory(), name, layout);
+            storages.add(storage);
+            log.info("Storing '{}' off-heap in {}", name, properties.directory().toAbsolutePath());
+            return storage;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create off-heap storage '" + name + "'", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        lock.lock();
+        try {
+            for (MappedEntityStorage<?> storage : storages) {
+                try {
+                    storage.close();
+                } catch (IOException e) {
+                    log.warn("Failed to close off-heap storage", e);
+                }
+            }
+            storages.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
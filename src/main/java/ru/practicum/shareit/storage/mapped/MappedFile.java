@@ -0,0 +1,89 @@
+package ru.practicum.shareit.storage.mapped;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Файл, отображённый в память кусками одинакового размера. Куски отображаются по мере
+ * обращения к ним; файл растёт вместе с ними и остаётся разреженным.
+ */
+class MappedFile implements Closeable {
+    private final Path path;
+    private final FileChannel channel;
+    private final int chunkSize;
+    private final ReentrantLock growLock = new ReentrantLock();
+    private volatile MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+
+    MappedFile(Path path, int chunkSize) throws IOException {
+        this.path = path;
+        this.chunkSize = chunkSize;
+        Files.deleteIfExists(path);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    int chunkSize() {
+        return chunkSize;
+    }
+
+    MappedByteBuffer chunk(int index) {
+        MappedByteBuffer[] current = chunks;
+        if (index < current.length) {
+            return current[index];
+        }
+        growLock.lock();
+        try {
+            current = chunks;
+            if (index >= current.length) {
+                MappedByteBuffer[] grown = Arrays.copyOf(current, index + 1);
+                for (int i = current.length; i <= index; i++) {
+                    grown[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i * chunkSize, chunkSize);
+                }
+                chunks = grown;
+                current = grown;
+            }
+            return current[index];
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map " + path, e);
+        } finally {
+            growLock.unlock();
+        }
+    }
+
+    void put(long offset, byte[] source) {
+        int done = 0;
+        while (done < source.length) {
+            long position = offset + done;
+            int inChunk = (int) (position % chunkSize);
+            int length = Math.min(source.length - done, chunkSize - inChunk);
+            chunk((int) (position / chunkSize)).put(inChunk, source, done, length);
+            done += length;
+        }
+    }
+
+    void get(long offset, byte[] target) {
+        int done = 0;
+        while (done < target.length) {
+            long position = offset + done;
+            int inChunk = (int) (position % chunkSize);
+            int length = Math.min(target.length - done, chunkSize - inChunk);
+            chunk((int) (position / chunkSize)).get(inChunk, target, done, length);
+            done += length;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        chunks = new MappedByteBuffer[0];
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+}
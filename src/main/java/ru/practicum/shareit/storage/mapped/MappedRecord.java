@@ -0,0 +1,147 @@
+package ru.practicum.shareit.storage.mapped;
+
+import ru.practicum.shareit.storage.RecordLayout;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Курсор по одной записи в отображённом куске: поля читаются и пишутся подряд
+ * абсолютными операциями, без копирования записи в кучу. При перезаписи занятого слота
+ * строки прежнего значения возвращаются в арену только после публикации записи ({@link #commit()});
+ * если запись не удалась, в арену возвращаются уже добавленные ею строки ({@link #rollback()}).
+ */
+class MappedRecord implements RecordLayout.Reader, RecordLayout.Writer {
+    private static final long NULL_LONG = Long.MIN_VALUE;
+    private static final long[] NO_REFERENCES = new long[0];
+
+    private final ByteBuffer chunk;
+    private final StringArena strings;
+    private final boolean replacing;
+    private int position;
+    private long[] replaced = NO_REFERENCES;
+    private int replacedCount;
+    private long[] appended = NO_REFERENCES;
+    private int appendedCount;
+
+    MappedRecord(ByteBuffer chunk, int position, StringArena strings) {
+        this(chunk, position, strings, false);
+    }
+
+    MappedRecord(ByteBuffer chunk, int position, StringArena strings, boolean replacing) {
+        this.chunk = chunk;
+        this.position = position;
+        this.strings = strings;
+        this.replacing = replacing;
+    }
+
+    @Override
+    public void writeLong(long value) {
+        chunk.putLong(position, value);
+        position += RecordLayout.LONG;
+    }
+
+    @Override
+    public void writeNullableLong(Long value) {
+        writeLong(value == null ? NULL_LONG : value);
+    }
+
+    @Override
+    public void writeString(String value) {
+        // Сначала новая строка: если она не поместится в арену, поле останется прежним
+        long reference = strings.append(value);
+        appended = push(appended, appendedCount++, reference);
+        if (replacing) {
+            replaced = push(replaced, replacedCount++, chunk.getLong(position));
+        }
+        chunk.putLong(position, reference);
+        position += RecordLayout.STRING;
+    }
+
+    /**
+     * Возвращает в арену строки прежнего значения. Вызывается после публикации записи.
+     */
+    void commit() {
+        for (int i = 0; i < replacedCount; i++) {
+            strings.release(replaced[i]);
+        }
+    }
+
+    /**
+     * Возвращает в арену строки, добавленные незавершённой записью; прежние остаются на месте.
+     */
+    void rollback() {
+        for (int i = 0; i < appendedCount; i++) {
+            strings.release(appended[i]);
+        }
+    }
+
+    private static long[] push(long[] references, int index, long reference) {
+        long[] target = index < references.length ? references : Arrays.copyOf(references, Math.max(4, index * 2));
+        target[index] = reference;
+        return target;
+    }
+
+    @Override
+    public void writeTime(LocalDateTime value) {
+        chunk.putLong(position, value == null ? NULL_LONG : value.toEpochSecond(ZoneOffset.UTC));
+        chunk.putInt(position + Long.BYTES, value == null ? 0 : value.getNano());
+        position += RecordLayout.TIME;
+    }
+
+    @Override
+    public void writeBoolean(Boolean value) {
+        chunk.put(position, (byte) (value == null ? -1 : value ? 1 : 0));
+        position += RecordLayout.BOOLEAN;
+    }
+
+    @Override
+    public void writeByte(byte value) {
+        chunk.put(position, value);
+        position += RecordLayout.BYTE;
+    }
+
+    @Override
+    public long readLong() {
+        long value = chunk.getLong(position);
+        position += RecordLayout.LONG;
+        return value;
+    }
+
+    @Override
+    public Long readNullableLong() {
+        long value = readLong();
+        return value == NULL_LONG ? null : value;
+    }
+
+    @Override
+    public String readString() {
+        long reference = chunk.getLong(position);
+        position += RecordLayout.STRING;
+        return strings.read(reference);
+    }
+
+    @Override
+    public LocalDateTime readTime() {
+        long seconds = chunk.getLong(position);
+        int nanos = chunk.getInt(position + Long.BYTES);
+        position += RecordLayout.TIME;
+        return seconds == NULL_LONG ? null : LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    @Override
+    public Boolean readBoolean() {
+        byte value = chunk.get(position);
+        position += RecordLayout.BOOLEAN;
+        return value < 0 ? null : value == 1;
+    }
+
+    @Override
+    public byte readByte() {
+        byte value = chunk.get(position);
+        position += RecordLayout.BYTE;
+        return value;
+    }
+}
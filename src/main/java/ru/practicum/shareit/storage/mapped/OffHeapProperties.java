@@ -0,0 +1,13 @@
+package ru.practicum.shareit.storage.mapped;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+
+@ConfigurationProperties(prefix = "shareit.offheap")
+public record OffHeapProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("offheap") Path directory
+) {
+}
@@ -0,0 +1,133 @@
+package ru.practicum.shareit.storage.mapped;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Строки в отображённом файле. Место выделяется блоками размером в степень двойки (от 8 байт);
+ * освобождённые блоки складываются в списки по размеру и отдаются следующим строкам того же класса.
+ * Ссылка на строку — смещение блока и длина в одном long, -1 означает null. Длина хранится
+ * в ссылке, а не в файле, поэтому чтение по устаревшей ссылке даёт мусор той же длины, но не выходит
+ * за пределы занятой части файла: такое чтение отбрасывает проверка версии записи.
+ */
+class StringArena implements Closeable {
+    static final long NULL = -1;
+    private static final int CHUNK_SIZE = 16 << 20;
+    private static final int LENGTH_BITS = 24;
+    private static final long LENGTH_MASK = (1L << LENGTH_BITS) - 1;
+    private static final int MIN_BLOCK = Long.BYTES;
+    private static final int CLASSES = LENGTH_BITS + 1;
+    private static final long NO_BLOCK = -1;
+
+    private final MappedFile file;
+    private final AtomicLong tail = new AtomicLong();
+    // Голова списка свободных блоков каждого класса; следующий блок записан в первых 8 байтах блока
+    private final long[] free = new long[CLASSES];
+    private final ReentrantLock[] locks = new ReentrantLock[CLASSES];
+
+    StringArena(Path path) throws IOException {
+        this.file = new MappedFile(path, CHUNK_SIZE);
+        for (int i = 0; i < CLASSES; i++) {
+            free[i] = NO_BLOCK;
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    long append(String value) {
+        if (value == null) {
+            return NULL;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > LENGTH_MASK) {
+            throw new IllegalArgumentException("String is too long for the arena: " + bytes.length + " bytes");
+        }
+        if (bytes.length == 0) {
+            return 0;
+        }
+        int sizeClass = sizeClass(bytes.length);
+        long offset = take(sizeClass);
+        if (offset == NO_BLOCK) {
+            offset = tail.getAndAdd(blockSize(sizeClass));
+        }
+        file.put(offset, bytes);
+        return offset << LENGTH_BITS | bytes.length;
+    }
+
+    String read(long reference) {
+        if (reference == NULL) {
+            return null;
+        }
+        int length = (int) (reference & LENGTH_MASK);
+        long offset = reference >>> LENGTH_BITS;
+        if (reference < 0 || offset + length > tail.get()) {
+            // Возможно только при чтении без замка, которое затем всё равно повторяется
+            throw new IllegalStateException("Stale string reference " + reference);
+        }
+        byte[] bytes = new byte[length];
+        file.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Возвращает блок строки в список свободных. Вызывается, когда на ссылку больше не указывает
+     * ни одна запись.
+     */
+    void release(long reference) {
+        int length = (int) (reference & LENGTH_MASK);
+        if (reference == NULL || length == 0) {
+            return;
+        }
+        int sizeClass = sizeClass(length);
+        long offset = reference >>> LENGTH_BITS;
+        ReentrantLock lock = locks[sizeClass];
+        lock.lock();
+        try {
+            file.put(offset, ByteBuffer.allocate(Long.BYTES).putLong(free[sizeClass]).array());
+            free[sizeClass] = offset;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Занятая часть файла в байтах, включая свободные блоки.
+     */
+    long size() {
+        return tail.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    private long take(int sizeClass) {
+        ReentrantLock lock = locks[sizeClass];
+        lock.lock();
+        try {
+            long offset = free[sizeClass];
+            if (offset != NO_BLOCK) {
+                byte[] next = new byte[Long.BYTES];
+                file.get(offset, next);
+                free[sizeClass] = ByteBuffer.wrap(next).getLong();
+            }
+            return offset;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static int sizeClass(int length) {
+        int block = Math.max(length, MIN_BLOCK);
+        return Integer.SIZE - Integer.numberOfLeadingZeros(block - 1);
+    }
+
+    private static int blockSize(int sizeClass) {
+        return 1 << sizeClass;
+    }
+}
@@ -0,0 +1,46 @@
+package ru.practicum.shareit.transfer;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/admin")
+@ConditionalOnProperty(prefix = "shareit.transfer", name = "enabled", havingValue = "true")
+public class DataTransferController {
+    private static final Logger log = LoggerFactory.getLogger(DataTransferController.class);
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final DataTransferService dataTransferService;
+
+    public DataTransferController(DataTransferService dataTransferService) {
+        this.dataTransferService = dataTransferService;
+    }
+
+    @GetMapping(value = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportAll() {
+        log.info("GET /admin/export - Streaming all data");
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"shareit.ndjson\"")
+                .body(dataTransferService::exportAll);
+    }
+
+    // Тело читается потоком, поэтому не объявлено как @RequestBody
+    @PostMapping(value = "/import", consumes = NDJSON)
+    public ImportSummary importAll(HttpServletRequest request) throws IOException {
+        log.info("POST /admin/import - Importing data");
+        return dataTransferService.importAll(request.getInputStream());
+    }
+}
@@ -0,0 +1,151 @@
+package ru.practicum.shareit.transfer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import ru.practicum.shareit.booking.BookingDto;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.ItemDto;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.request.ItemRequestDto;
+import ru.practicum.shareit.request.ItemRequestService;
+import ru.practicum.shareit.user.UserDto;
+import ru.practicum.shareit.user.UserService;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Выгрузка и загрузка всех данных в формате NDJSON: одна строка — одна запись
+ * вида {"type": "...", "data": {...}}. Обе операции идут потоком по хранилищам,
+ * не собирая данные в память. Порядок типов такой, чтобы ссылки при загрузке
+ * указывали на уже загруженные записи.
+ * Доступ к операциям не проверяется, поэтому они включаются только явно: shareit.transfer.enabled.
+ */
+@Service
+@ConditionalOnProperty(prefix = "shareit.transfer", name = "enabled", havingValue = "true")
+public class DataTransferService {
+    private static final Logger log = LoggerFactory.getLogger(DataTransferService.class);
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final int FLUSH_EVERY = 1000;
+
+    private final ObjectMapper objectMapper;
+    private final Map<String, Section<?>> sections = new LinkedHashMap<>();
+
+    public DataTransferService(ObjectMapper objectMapper, UserService userService,
+                               ItemRequestService itemRequestService, ItemService itemService,
+                               BookingService bookingService) {
+        this.objectMapper = objectMapper;
+        register(new Section<>("user", UserDto.class, userService::streamAllUsers, userService::restoreUser));
+        register(new Section<>("request", ItemRequestDto.class,
+                itemRequestService::exportRequests, itemRequestService::restoreRequest));
+        register(new Section<>("item", ItemDto.class, itemService::exportItems, itemService::restoreItem));
+        register(new Section<>("booking", BookingDto.class,
+                bookingService::exportBookings, bookingService::restoreBooking));
+    }
+
+    public void exportAll(OutputStream output) throws IOException {
+        long started = System.nanoTime();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        long written = 0;
+        for (Section<?> section : sections.values()) {
+            try (Stream<?> records = section.export().get()) {
+                Iterator<?> iterator = records.iterator();
+                while (iterator.hasNext()) {
+                    ObjectNode line = objectMapper.createObjectNode();
+                    line.put("type", section.type());
+                    line.set("data", objectMapper.valueToTree(iterator.next()));
+                    writer.write(objectMapper.writeValueAsString(line));
+                    writer.write('\n');
+                    if (++written % FLUSH_EVERY == 0) {
+                        writer.flush();
+                    }
+                }
+            }
+        }
+        writer.flush();
+        log.info("Exported {} records in {} ms", written, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    public ImportSummary importAll(InputStream input) throws IOException {
+        long started = System.nanoTime();
+        Map<String, Long> imported = new LinkedHashMap<>();
+        List<String> errors = new ArrayList<>();
+        long failed = 0;
+        long lineNumber = 0;
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                String type = importLine(line);
+                imported.merge(type, 1L, Long::sum);
+            } catch (JsonProcessingException e) {
+                failed++;
+                reportError(errors, lineNumber, e.getOriginalMessage());
+            } catch (RuntimeException e) {
+                failed++;
+                reportError(errors, lineNumber, e.getMessage());
+            }
+        }
+
+        log.info("Imported {} records ({} failed) in {} ms",
+                imported, failed, (System.nanoTime() - started) / 1_000_000);
+        return new ImportSummary(imported, failed, errors);
+    }
+
+    private String importLine(String line) throws JsonProcessingException {
+        JsonNode node = objectMapper.readTree(line);
+        String type = node.path("type").asText();
+        Section<?> section = sections.get(type);
+        if (section == null) {
+            throw new ValidationException("Unknown record type: '" + type + "'");
+        }
+        if (!node.path("data").isObject()) {
+            throw new ValidationException("Record data is missing");
+        }
+        section.restore(objectMapper, node.get("data"));
+        return type;
+    }
+
+    private void reportError(List<String> errors, long lineNumber, String message) {
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add("line " + lineNumber + ": " + message);
+        }
+    }
+
+    private void register(Section<?> section) {
+        sections.put(section.type(), section);
+    }
+
+    private record Section<T>(String type, Class<T> dtoType, Supplier<Stream<T>> export, Consumer<T> restore) {
+        void restore(ObjectMapper objectMapper, JsonNode data) throws JsonProcessingException {
+            restore.accept(objectMapper.treeToValue(data, dtoType));
+        }
+    }
+}
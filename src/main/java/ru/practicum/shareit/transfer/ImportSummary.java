@@ -0,0 +1,10 @@
+package ru.practicum.shareit.transfer;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Итог импорта: число записей по типам, число отклонённых строк и первые из ошибок.
+ */
+public record ImportSummary(Map<String, Long> imported, long failed, List<String> errors) {
+}
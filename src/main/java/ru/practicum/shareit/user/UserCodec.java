@@ -0,0 +1,22 @@
+package ru.practicum.shareit.user;
+
+import ru.practicum.shareit.storage.Codecs;
+import ru.practicum.shareit.storage.EntityCodec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+class UserCodec implements EntityCodec<User> {
+    @Override
+    public void write(User user, DataOutput out) throws IOException {
+        Codecs.writeLong(out, user.getId());
+        Codecs.writeString(out, user.getName());
+        Codecs.writeString(out, user.getEmail());
+    }
+
+    @Override
+    public User read(DataInput in) throws IOException {
+        return new User(Codecs.readLong(in), Codecs.readString(in), Codecs.readString(in));
+    }
+}
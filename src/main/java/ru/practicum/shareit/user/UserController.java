@@ -4,7 +4,12 @@ import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.common.BatchResult;
+import ru.practicum.shareit.common.JsonCache;
+import ru.practicum.shareit.common.NdjsonWriter;
 
 import java.util.List;
 
@@ -13,9 +18,13 @@ import java.util.List;
 public class UserController {
     private static final Logger log = LoggerFactory.getLogger(UserController.class);
     private final UserService userService;
+    private final NdjsonWriter ndjsonWriter;
+    private final JsonCache jsonCache;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, NdjsonWriter ndjsonWriter, JsonCache jsonCache) {
         this.userService = userService;
+        this.ndjsonWriter = ndjsonWriter;
+        this.jsonCache = jsonCache;
     }
 
     @PostMapping
@@ -27,6 +36,18 @@ public class UserController {
         return createdUser;
     }
 
+    @PostMapping("/batch")
+    public List<BatchResult<UserDto>> createUsers(@RequestBody List<UserDto> userDtos) {
+        log.info("POST /users/batch - Creating {} users", userDtos.size());
+        return userService.createUsers(userDtos);
+    }
+
+    @PatchMapping("/batch")
+    public List<BatchResult<UserDto>> updateUsers(@RequestBody List<UserDto> userDtos) {
+        log.info("PATCH /users/batch - Updating {} users", userDtos.size());
+        return userService.updateUsers(userDtos);
+    }
+
     @PatchMapping("/{userId}")
     public UserDto updateUser(
             @PathVariable Long userId,
@@ -39,21 +60,29 @@ public class UserController {
     }
 
     @GetMapping("/{userId}")
-    public UserDto getUserById(@PathVariable Long userId) {
+    public ResponseEntity<byte[]> getUserById(@PathVariable Long userId) {
         log.info("GET /users/{} - Fetching user", userId);
-        UserDto user = userService.getUserById(userId);
-        log.debug("Fetched user: ID={}, Email={}", user.getId(), user.getEmail());
-        return user;
+        return jsonCache.get(JsonCache.USERS, userId, () -> userService.getUserById(userId));
     }
 
     @GetMapping
-    public List<UserDto> getAllUsers() {
-        log.info("GET /users - Fetching all users");
-        List<UserDto> users = userService.getAllUsers();
+    public List<UserDto> getAllUsers(@RequestParam(required = false) List<Long> ids) {
+        if (ids != null) {
+            log.info("GET /users?ids= - Fetching {} users by ID", ids.size());
+        } else {
+            log.info("GET /users - Fetching all users");
+        }
+        List<UserDto> users = ids != null ? userService.getUsersByIds(ids) : userService.getAllUsers();
         log.debug("Fetched {} users", users.size());
         return users;
     }
 
+    @GetMapping(produces = NdjsonWriter.NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamAllUsers() {
+        log.info("GET /users (ndjson) - Streaming all users");
+        return ndjsonWriter.stream("users", userService.streamAllUsers());
+    }
+
     @DeleteMapping("/{userId}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void deleteUser(@PathVariable Long userId) {
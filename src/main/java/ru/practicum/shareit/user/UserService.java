@@ -1,17 +1,36 @@
 package ru.practicum.shareit.user;
 
+import ru.practicum.shareit.common.BatchResult;
+
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface UserService {
     UserDto createUser(UserDto userDto);
 
     UserDto updateUser(Long userId, UserDto userDto);
 
+    List<BatchResult<UserDto>> createUsers(List<UserDto> userDtos);
+
+    List<BatchResult<UserDto>> updateUsers(List<UserDto> userDtos);
+
     UserDto getUserById(Long userId);
 
     List<UserDto> getAllUsers();
 
+    /**
+     * Все пользователи ленивым потоком, для ответа без промежуточного списка.
+     */
+    Stream<UserDto> streamAllUsers();
+
+    List<UserDto> getUsersByIds(List<Long> userIds);
+
     void deleteUser(Long userId);
 
     User getUserEntityById(Long userId);
+
+    /**
+     * Сохраняет пользователя с уже выданным id (импорт данных).
+     */
+    void restoreUser(UserDto userDto);
 }
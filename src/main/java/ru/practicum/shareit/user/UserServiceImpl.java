@@ -1,28 +1,148 @@
 package ru.practicum.shareit.user;
 
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import ru.practicum.shareit.common.BatchResult;
+import ru.practicum.shareit.common.CollectionVersions;
+import ru.practicum.shareit.common.DtoValidator;
+import ru.practicum.shareit.common.JsonCache;
 import ru.practicum.shareit.exception.DuplicateEmailException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.storage.EntityStorage;
+import ru.practicum.shareit.storage.EntityStorageFactory;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 
+@Timed(value = "shareit.service", histogram = true)
 @Service
 public class UserServiceImpl implements UserService {
     private static final Logger log = LoggerFactory.getLogger(UserServiceImpl.class);
-    private final Map<Long, User> users = new HashMap<>();
-    private final AtomicLong idCounter = new AtomicLong(1);
+    private static final Long RESERVED_ID = 0L;
+    private final EntityStorage<User> users;
+    // Индекс email (в нижнем регистре) -> id пользователя
+    private final Map<String, Long> emailIndex = new ConcurrentHashMap<>();
+    private final DtoValidator dtoValidator;
+    private final JsonCache jsonCache;
+    private final CollectionVersions versions;
+
+    public UserServiceImpl(DtoValidator dtoValidator, JsonCache jsonCache, CollectionVersions versions,
+                           EntityStorageFactory storageFactory, MeterRegistry meterRegistry) {
+        this.dtoValidator = dtoValidator;
+        this.jsonCache = jsonCache;
+        this.versions = versions;
+        this.users = storageFactory.create("users", new UserCodec(), this::rebuildIndexes);
+
+        Gauge.builder("shareit.entities", users, EntityStorage::size).tag("type", "user")
+                .register(meterRegistry);
+        Gauge.builder("shareit.index.entries", emailIndex, Map::size).tag("index", "user-email")
+                .register(meterRegistry);
+    }
 
     @Override
     public UserDto createUser(UserDto userDto) {
         log.info("Creating new user with email: {}", userDto.getEmail());
 
+        User user = prepareUser(userDto);
+        try {
+            users.save(user.getId(), user);
+        } catch (RuntimeException e) {
+            emailIndex.remove(normalizeEmail(user.getEmail()), RESERVED_ID);
+            throw e;
+        }
+        emailIndex.put(normalizeEmail(user.getEmail()), user.getId());
+
+        log.debug("Created user: ID={}, Name={}, Email={}",
+                user.getId(), user.getName(), user.getEmail());
+        return UserMapper.toUserDto(user);
+    }
+
+    @Override
+    public List<BatchResult<UserDto>> createUsers(List<UserDto> userDtos) {
+        log.info("Creating {} users in batch", userDtos.size());
+
+        List<BatchResult<UserDto>> results = new ArrayList<>(userDtos.size());
+        Map<Long, User> created = new LinkedHashMap<>();
+        // id пользователя -> позиция его результата
+        Map<Long, Integer> positions = new HashMap<>();
+        for (int i = 0; i < userDtos.size(); i++) {
+            try {
+                dtoValidator.validate(userDtos.get(i));
+                User user = prepareUser(userDtos.get(i));
+                created.put(user.getId(), user);
+                positions.put(user.getId(), i);
+                results.add(BatchResult.of(i, HttpStatus.CREATED, UserMapper.toUserDto(user)));
+            } catch (RuntimeException e) {
+                results.add(BatchResult.failed(i, e));
+            }
+        }
+
+        try {
+            users.putAll(created);
+        } catch (RuntimeException e) {
+            // Запись могла пройти частично: тех, кого нет в хранилище, переводим в ошибки и освобождаем email
+            created.values().removeIf(user -> {
+                if (users.containsKey(user.getId())) {
+                    return false;
+                }
+                emailIndex.remove(normalizeEmail(user.getEmail()), RESERVED_ID);
+                int index = positions.get(user.getId());
+                results.set(index, BatchResult.failed(index, e));
+                return true;
+            });
+        }
+        created.values().forEach(user -> emailIndex.put(normalizeEmail(user.getEmail()), user.getId()));
+
+        log.debug("Created {} of {} users in batch", created.size(), userDtos.size());
+        return results;
+    }
+
+    @Override
+    public List<BatchResult<UserDto>> updateUsers(List<UserDto> userDtos) {
+        log.info("Updating {} users in batch", userDtos.size());
+
+        List<BatchResult<UserDto>> results = new ArrayList<>(userDtos.size());
+        for (int i = 0; i < userDtos.size(); i++) {
+            UserDto userDto = userDtos.get(i);
+            try {
+                if (userDto.getId() == null) {
+                    throw new ValidationException("User id is required");
+                }
+                results.add(BatchResult.of(i, HttpStatus.OK, updateUser(userDto.getId(), userDto)));
+            } catch (RuntimeException e) {
+                results.add(BatchResult.failed(i, e));
+            }
+        }
+        return results;
+    }
+
+    // Освобождает email, если он занят пользователем, но не совпадает с сохранённым у него
+    private void releaseEmail(Long userId, String emailKey) {
+        users.locked(userId, () -> {
+            User current = users.get(userId);
+            if (current == null || !normalizeEmail(current.getEmail()).equals(emailKey)) {
+                emailIndex.remove(emailKey, userId);
+            }
+            return null;
+        });
+    }
+
+    // Проверяет пользователя, резервирует email и выдаёт id; в хранилище не пишет
+    private User prepareUser(UserDto userDto) {
         if (userDto.getName() == null || userDto.getName().isBlank()) {
             throw new ValidationException("Name cannot be blank");
         }
@@ -31,50 +151,75 @@ public class UserServiceImpl implements UserService {
             throw new ValidationException("Email cannot be blank");
         }
 
-        // Проверка уникальности email
-        if (isEmailExists(userDto.getEmail())) {
+        // Проверка уникальности email: резервируем адрес в индексе до выдачи id
+        String emailKey = normalizeEmail(userDto.getEmail());
+        if (emailIndex.putIfAbsent(emailKey, RESERVED_ID) != null) {
             log.warn("Duplicate email detected: {}", userDto.getEmail());
             throw new DuplicateEmailException("Email already exists: " + userDto.getEmail());
         }
 
         User user = UserMapper.toUser(userDto);
-        user.setId(idCounter.getAndIncrement());
-        users.put(user.getId(), user);
-
-        log.debug("Created user: ID={}, Name={}, Email={}",
-                user.getId(), user.getName(), user.getEmail());
-        return UserMapper.toUserDto(user);
+        user.setId(users.nextId());
+        return user;
     }
 
     @Override
     public UserDto updateUser(Long userId, UserDto userDto) {
         log.info("Updating user ID: {}", userId);
 
-        User existingUser = users.get(userId);
-        if (existingUser == null) {
+        String claimedKey = userDto.getEmail() != null ? normalizeEmail(userDto.getEmail()) : null;
+        AtomicReference<User> previous = new AtomicReference<>();
+        boolean completed = false;
+        User updatedUser;
+        try {
+            updatedUser = users.update(userId, existingUser -> {
+                previous.set(existingUser);
+                return patchUser(userId, existingUser, userDto);
+            });
+            completed = true;
+        } finally {
+            // Новый email мог быть занят в patch, а запись не состояться
+            if (!completed && claimedKey != null) {
+                releaseEmail(userId, claimedKey);
+            }
+            jsonCache.invalidate(JsonCache.USERS, userId);
+        }
+
+        if (updatedUser == null) {
             log.warn("User not found for update: ID={}", userId);
             throw new NotFoundException("User not found with id: " + userId);
         }
+        // Прежний email освобождается только после записи: при откате он снова понадобится пользователю
+        releaseEmail(userId, normalizeEmail(previous.get().getEmail()));
 
-        // Проверка уникальности нового email
-        if (userDto.getEmail() != null &&
-                !userDto.getEmail().equals(existingUser.getEmail()) &&
-                isEmailExists(userDto.getEmail())) {
-            log.warn("Duplicate email during update: {}", userDto.getEmail());
-            throw new DuplicateEmailException("Email already exists: " + userDto.getEmail());
-        }
+        return UserMapper.toUserDto(updatedUser);
+    }
 
+    // Вызывается под замком пользователя; при смене email занимает новый адрес, прежний не освобождает
+    private User patchUser(Long userId, User existingUser, UserDto userDto) {
         String originalName = existingUser.getName();
         String originalEmail = existingUser.getEmail();
+        String originalKey = normalizeEmail(originalEmail);
+        String newKey = userDto.getEmail() != null ? normalizeEmail(userDto.getEmail()) : originalKey;
+        boolean emailChanged = !newKey.equals(originalKey);
 
-        if (userDto.getName() != null) existingUser.setName(userDto.getName());
-        if (userDto.getEmail() != null) existingUser.setEmail(userDto.getEmail());
+        // Проверка уникальности нового email
+        if (emailChanged) {
+            Long holder = emailIndex.putIfAbsent(newKey, userId);
+            if (holder != null && !holder.equals(userId)) {
+                log.warn("Duplicate email during update: {}", userDto.getEmail());
+                throw new DuplicateEmailException("Email already exists: " + userDto.getEmail());
+            }
+        }
 
-        log.debug("Updated user: ID={}, Name: {} -> {}, Email: {} -> {}",
-                userId, originalName, existingUser.getName(),
-                originalEmail, existingUser.getEmail());
+        User patched = existingUser;
+        if (userDto.getName() != null) patched = patched.withName(userDto.getName());
+        if (userDto.getEmail() != null) patched = patched.withEmail(userDto.getEmail());
 
-        return UserMapper.toUserDto(existingUser);
+        log.debug("Updated user: ID={}, Name: {} -> {}, Email: {} -> {}",
+                userId, originalName, patched.getName(),
+                originalEmail, patched.getEmail());
+        return patched;
     }
 
     @Override
@@ -93,7 +238,20 @@ public class UserServiceImpl implements UserService {
     @Override
     public List<UserDto> getAllUsers() {
         log.debug("Fetching all users, count: {}", users.size());
-        return users.values().stream()
+        return streamAllUsers().toList();
+    }
+
+    @Override
+    public Stream<UserDto> streamAllUsers() {
+        return users.values().stream().map(UserMapper::toUserDto);
+    }
+
+    @Override
+    public List<UserDto> getUsersByIds(List<Long> userIds) {
+        log.debug("Fetching {} users by ID", userIds.size());
+        return userIds.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
                 .map(UserMapper::toUserDto)
                 .toList();
     }
@@ -102,12 +260,15 @@ public class UserServiceImpl implements UserService {
     public void deleteUser(Long userId) {
         log.info("Deleting user ID: {}", userId);
 
-        if (!users.containsKey(userId)) {
+        User removedUser = users.remove(userId);
+        jsonCache.invalidate(JsonCache.USERS, userId);
+        if (removedUser == null) {
             log.warn("User not found for deletion: ID={}", userId);
             throw new NotFoundException("User not found with id: " + userId);
         }
 
-        User removedUser = users.remove(userId);
+        emailIndex.remove(normalizeEmail(removedUser.getEmail()), userId);
+        versions.touchUser(userId);
         log.debug("Deleted user: ID={}, Email={}", userId, removedUser.getEmail());
     }
 
@@ -124,10 +285,42 @@ public class UserServiceImpl implements UserService {
         return user;
     }
 
-    private boolean isEmailExists(String email) {
-        return users.values().stream()
-                .map(User::getEmail)
-                .filter(Objects::nonNull)
-                .anyMatch(e -> e.equals(email));
+    @Override
+    public void restoreUser(UserDto userDto) {
+        if (userDto.getId() == null) {
+            throw new ValidationException("User id is required");
+        }
+        dtoValidator.validate(userDto);
+
+        User user = UserMapper.toUser(userDto);
+        if (users.containsKey(user.getId())) {
+            throw new ValidationException("User already exists: " + user.getId());
+        }
+        String emailKey = normalizeEmail(user.getEmail());
+        if (emailIndex.putIfAbsent(emailKey, user.getId()) != null) {
+            throw new DuplicateEmailException("Email already exists: " + user.getEmail());
+        }
+        User existing;
+        try {
+            existing = users.putIfAbsent(user.getId(), user);
+        } catch (RuntimeException e) {
+            emailIndex.remove(emailKey, user.getId());
+            throw e;
+        }
+        if (existing != null) {
+            emailIndex.remove(emailKey, user.getId());
+            throw new ValidationException("User already exists: " + user.getId());
+        }
+        users.advanceNextId(user.getId() + 1);
+    }
+
+    // Перестроение индекса после восстановления данных при старте
+    private void rebuildIndexes() {
+        emailIndex.clear();
+        users.values().forEach(user -> emailIndex.put(normalizeEmail(user.getEmail()), user.getId()));
+    }
+
+    private static String normalizeEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
     }
 }
@@ -0,0 +1,69 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookingIndexTest {
+    private static final long USER = 1;
+    private static final long NOW = TimeUnit.DAYS.toMillis(365);
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+    private final BookingIndex index = new BookingIndex();
+
+    @Test
+    void selectsCurrentPastAndFutureBookings() {
+        BookingKey longPast = add(1, NOW - 1000 * HOUR, NOW - 900 * HOUR);
+        BookingKey recent = add(2, NOW - 3 * HOUR, NOW - HOUR);
+        BookingKey longCurrent = add(3, NOW - 500 * HOUR, NOW + HOUR);
+        BookingKey current = add(4, NOW - HOUR, NOW + HOUR);
+        BookingKey future = add(5, NOW + HOUR, NOW + 2 * HOUR);
+
+        assertThat(select(BookingState.CURRENT, null)).containsExactly(current, longCurrent);
+        assertThat(select(BookingState.PAST, null)).containsExactly(recent, longPast);
+        assertThat(select(BookingState.FUTURE, null)).containsExactly(future);
+        assertThat(select(BookingState.ALL, null)).containsExactly(future, current, recent, longCurrent, longPast);
+    }
+
+    @Test
+    void currentSkipsFinishedBookingsOnlyOnce() {
+        for (int id = 1; id <= 1000; id++) {
+            add(id, NOW - 100 * HOUR - id, NOW - 50 * HOUR);
+        }
+        BookingKey current = add(1001, NOW - 200 * HOUR, NOW + HOUR);
+
+        AtomicInteger firstScan = new AtomicInteger();
+        assertThat(index.select(USER, BookingState.CURRENT, NOW, null, firstScan::incrementAndGet))
+                .containsExactly(current);
+        AtomicInteger secondScan = new AtomicInteger();
+        assertThat(index.select(USER, BookingState.CURRENT, NOW, null, secondScan::incrementAndGet))
+                .containsExactly(current);
+
+        assertThat(firstScan.get()).isEqualTo(1001);
+        assertThat(secondScan.get()).isEqualTo(1);
+    }
+
+    @Test
+    void currentContinuesAfterCursor() {
+        BookingKey first = add(1, NOW - HOUR, NOW + HOUR);
+        BookingKey second = add(2, NOW - 2 * HOUR, NOW + HOUR);
+        BookingKey third = add(3, NOW - 3 * HOUR, NOW + HOUR);
+
+        assertThat(select(BookingState.CURRENT, null)).containsExactly(first, second, third);
+        assertThat(select(BookingState.CURRENT, first)).containsExactly(second, third);
+    }
+
+    private BookingKey add(long id, long start, long end) {
+        BookingKey key = new BookingKey(start, end, id);
+        index.add(USER, key, BookingStatus.APPROVED);
+        return key;
+    }
+
+    private List<BookingKey> select(BookingState state, BookingKey after) {
+        return index.select(USER, state, NOW, after, () -> { }).toList();
+    }
+}
@@ -0,0 +1,113 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import ru.practicum.shareit.common.CollectionVersions;
+import ru.practicum.shareit.common.DtoValidator;
+import ru.practicum.shareit.common.JsonCache;
+import ru.practicum.shareit.common.JsonCacheProperties;
+import ru.practicum.shareit.common.PageRequest;
+import ru.practicum.shareit.exception.BookingConflictException;
+import ru.practicum.shareit.item.ItemDto;
+import ru.practicum.shareit.item.ItemServiceImpl;
+import ru.practicum.shareit.request.ItemRequestServiceImpl;
+import ru.practicum.shareit.storage.journal.FaultyJournal;
+import ru.practicum.shareit.user.UserDto;
+import ru.practicum.shareit.user.UserServiceImpl;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BookingServiceImplTest {
+    private static final LocalDateTime START = LocalDateTime.now().plusDays(1).withNano(0);
+
+    @TempDir
+    Path directory;
+
+    private FaultyJournal journal;
+    private BookingServiceImpl service;
+    private Long ownerId;
+    private Long bookerId;
+    private Long itemId;
+
+    @BeforeEach
+    void open() throws IOException {
+        journal = new FaultyJournal(directory);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        JsonMapper mapper = JsonMapper.builder().findAndAddModules().build();
+        DtoValidator validator = new DtoValidator(Validation.buildDefaultValidatorFactory().getValidator());
+        JsonCache cache = new JsonCache(mapper, new JsonCacheProperties(true, DataSize.ofMegabytes(1)), registry);
+        CollectionVersions versions = new CollectionVersions();
+        ApprovedBookings approved = new ApprovedBookings();
+        UserServiceImpl users = new UserServiceImpl(validator, cache, versions, journal, registry);
+        ItemServiceImpl items = new ItemServiceImpl(users, new ItemRequestServiceImpl(users, versions, journal, registry),
+                approved, validator, cache, versions, journal, registry);
+        service = new BookingServiceImpl(users, items, approved,
+                new BookingEvents(users, mapper, new BookingEventsProperties(Duration.ofMinutes(1),
+                        Duration.ofSeconds(30), 16), registry),
+                validator, cache, versions, journal, registry);
+
+        ownerId = users.createUser(new UserDto(null, "Anna", "anna@example.com")).getId();
+        bookerId = users.createUser(new UserDto(null, "Boris", "boris@example.com")).getId();
+        itemId = items.addItem(new ItemDto(null, "Дрель", "Ударная", true, null, null, null, null), ownerId).getId();
+    }
+
+    @AfterEach
+    void close() {
+        journal.close();
+    }
+
+    @Test
+    void failedRejectKeepsSlotAndIndexes() {
+        Long id = book(START, START.plusDays(2));
+
+        journal.failWrites(true);
+        assertThatThrownBy(() -> service.approveBooking(id, ownerId, false)).isInstanceOf(IllegalStateException.class);
+        journal.failWrites(false);
+
+        assertThat(service.getBookingById(id, ownerId).getStatus()).isEqualTo(BookingStatus.WAITING);
+        assertThatThrownBy(() -> book(START.plusDays(1), START.plusDays(3)))
+                .isInstanceOf(BookingConflictException.class);
+        assertThat(ids("WAITING")).containsExactly(id);
+        assertThat(ids("REJECTED")).isEmpty();
+    }
+
+    @Test
+    void failedApproveKeepsIndexesWaiting() {
+        Long id = book(START, START.plusDays(2));
+
+        journal.failWrites(true);
+        assertThatThrownBy(() -> service.approveBooking(id, ownerId, true)).isInstanceOf(IllegalStateException.class);
+        journal.failWrites(false);
+
+        assertThat(service.getBookingById(id, ownerId).getStatus()).isEqualTo(BookingStatus.WAITING);
+        assertThat(ids("WAITING")).containsExactly(id);
+
+        service.approveBooking(id, ownerId, true);
+        assertThat(ids("WAITING")).isEmpty();
+        assertThat(service.getAllBookingsForOwner(ownerId, "ALL", PageRequest.of(0, 10, null)).content())
+                .extracting(BookingDto::getStatus).containsExactly(BookingStatus.APPROVED);
+    }
+
+    private Long book(LocalDateTime start, LocalDateTime end) {
+        return service.createBooking(new BookingDto(null, start, end, itemId, null, null), bookerId).getId();
+    }
+
+    private List<Long> ids(String state) {
+        return service.getAllBookingsForUser(bookerId, state, PageRequest.of(0, 10, null)).content().stream()
+                .map(BookingDto::getId)
+                .toList();
+    }
+}
@@ -0,0 +1,54 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ItemScheduleTest {
+    private final ItemSchedule schedule = new ItemSchedule();
+    private final AtomicLong ids = new AtomicLong();
+
+    @Test
+    void rejectsOverlappingIntervalsAndAcceptsAdjacentOnes() {
+        BookingKey key = schedule.reserve(1, 10, 20, ids::incrementAndGet);
+        assertThat(key).isEqualTo(new BookingKey(10, 20, 1));
+
+        assertThat(schedule.reserve(1, 15, 25, ids::incrementAndGet)).isNull();
+        assertThat(schedule.reserve(1, 5, 11, ids::incrementAndGet)).isNull();
+        assertThat(schedule.reserve(1, 12, 18, ids::incrementAndGet)).isNull();
+        assertThat(schedule.reserve(1, 0, 30, ids::incrementAndGet)).isNull();
+        assertThat(schedule.reserve(1, 10, 20, ids::incrementAndGet)).isNull();
+        // При отказе id не выдаётся
+        assertThat(ids.get()).isEqualTo(1);
+
+        assertThat(schedule.reserve(1, 20, 30, ids::incrementAndGet)).isEqualTo(new BookingKey(20, 30, 2));
+        assertThat(schedule.reserve(1, 0, 10, ids::incrementAndGet)).isEqualTo(new BookingKey(0, 10, 3));
+        // Интервалы разных вещей друг другу не мешают
+        assertThat(schedule.reserve(2, 10, 20, ids::incrementAndGet)).isNotNull();
+        assertThat(schedule.items()).isEqualTo(2);
+    }
+
+    @Test
+    void releaseFreesOnlyTheSameBooking() {
+        BookingKey key = schedule.reserve(1, 10, 20, ids::incrementAndGet);
+
+        schedule.release(1, new BookingKey(10, 20, 99));
+        assertThat(schedule.reserve(1, 10, 20, ids::incrementAndGet)).isNull();
+
+        schedule.release(1, key);
+        assertThat(schedule.reserve(1, 12, 18, ids::incrementAndGet)).isNotNull();
+    }
+
+    @Test
+    void holdIsIdempotentAndRespectsOtherBookings() {
+        BookingKey key = new BookingKey(10, 20, 1);
+        assertThat(schedule.hold(1, key)).isSameAs(key);
+        assertThat(schedule.hold(1, new BookingKey(10, 20, 1))).isSameAs(key);
+
+        assertThat(schedule.hold(1, new BookingKey(19, 25, 2))).isNull();
+        assertThat(schedule.hold(1, new BookingKey(20, 25, 2))).isNotNull();
+        assertThat(schedule.reserve(1, 15, 16, ids::incrementAndGet)).isNull();
+    }
+}
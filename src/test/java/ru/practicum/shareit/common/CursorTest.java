@@ -0,0 +1,46 @@
+package ru.practicum.shareit.common;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorTest {
+
+    @Test
+    void roundTripsNumericAndTimeKeys() {
+        Cursor numeric = Cursor.decode(Cursor.of(-42L, 7).encode());
+        assertThat(numeric.sortKeyAsLong()).isEqualTo(-42L);
+        assertThat(numeric.id()).isEqualTo(7);
+
+        LocalDateTime time = LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_000_000);
+        Cursor timed = Cursor.decode(Cursor.of(time, Long.MAX_VALUE).encode());
+        assertThat(timed.sortKeyAsTime()).isEqualTo(time);
+        assertThat(timed.id()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void tokenIsUrlSafe() {
+        assertThat(Cursor.of(LocalDateTime.of(2024, 1, 1, 0, 0), 1).encode()).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        assertThatThrownBy(() -> Cursor.decode("not base64!")).isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> Cursor.decode(encode("no separator"))).isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> Cursor.decode(encode("5|x"))).isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> Cursor.decode(encode("abc|1")).sortKeyAsLong())
+                .isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> Cursor.decode(encode("abc|1")).sortKeyAsTime())
+                .isInstanceOf(ValidationException.class);
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
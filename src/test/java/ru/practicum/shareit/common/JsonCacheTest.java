@@ -0,0 +1,42 @@
+package ru.practicum.shareit.common;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonCacheTest {
+    private final JsonCache cache = new JsonCache(new ObjectMapper(),
+            new JsonCacheProperties(true, DataSize.ofMegabytes(1)), new SimpleMeterRegistry());
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void servesRepeatedReadsFromCache() {
+        assertThat(body(() -> "v" + loads.incrementAndGet())).isEqualTo("\"v1\"");
+        assertThat(body(() -> "v" + loads.incrementAndGet())).isEqualTo("\"v1\"");
+
+        cache.invalidate(JsonCache.USERS, 1L);
+        assertThat(body(() -> "v" + loads.incrementAndGet())).isEqualTo("\"v2\"");
+    }
+
+    @Test
+    void dropsValueLoadedWhileKeyWasInvalidated() {
+        // Сброс во время загрузки: загруженное значение могло устареть и в кэше оставаться не должно
+        assertThat(body(() -> {
+            cache.invalidate(JsonCache.USERS, 1L);
+            return "v" + loads.incrementAndGet();
+        })).isEqualTo("\"v1\"");
+
+        assertThat(body(() -> "v" + loads.incrementAndGet())).isEqualTo("\"v2\"");
+        assertThat(body(() -> "v" + loads.incrementAndGet())).isEqualTo("\"v2\"");
+    }
+
+    private String body(Supplier<String> loader) {
+        return new String(cache.get(JsonCache.USERS, 1L, loader).getBody());
+    }
+}
@@ -0,0 +1,45 @@
+package ru.practicum.shareit.common;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PageTest {
+
+    @Test
+    void fullPageCarriesCursorThatRoundTripsThroughRequest() {
+        Page<Long> page = Page.of(List.of(3L, 5L), PageRequest.of(0, 2, null), id -> Cursor.of(id * 10, id));
+        ResponseEntity<List<Long>> response = page.toResponseEntity();
+
+        String token = response.getHeaders().getFirst(Page.NEXT_CURSOR_HEADER);
+        assertThat(token).isNotNull();
+        PageRequest next = PageRequest.of(0, 2, token);
+        assertThat(next.after()).isEqualTo(Cursor.of(50, 5));
+        assertThat(next.after().sortKeyAsLong()).isEqualTo(50);
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        Page<Long> partial = Page.of(List.of(3L), PageRequest.of(0, 2, null), id -> Cursor.of(id, id));
+        assertThat(partial.next()).isNull();
+        assertThat(partial.toResponseEntity().getHeaders().containsKey(Page.NEXT_CURSOR_HEADER)).isFalse();
+
+        Page<Long> empty = Page.of(List.of(), PageRequest.of(0, 2, null), id -> Cursor.of(id, id));
+        assertThat(empty.next()).isNull();
+    }
+
+    @Test
+    void requestRejectsInvalidParameters() {
+        String token = Cursor.of(1, 1).encode();
+        assertThatThrownBy(() -> PageRequest.of(-1, 10, null)).isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> PageRequest.of(0, 0, null)).isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> PageRequest.of(5, 10, token)).isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> PageRequest.of(0, 10, "%%%")).isInstanceOf(ValidationException.class);
+        assertThat(PageRequest.of(0, null, null).size()).isEqualTo(Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,105 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ItemSearchIndexTest {
+    private final Map<Long, Item> items = new HashMap<>();
+    private final ItemSearchIndex index = new ItemSearchIndex(items::get);
+
+    @Test
+    void findsSubstringsOfNameAndDescription() {
+        add(1, "Дрель ударная", "Мощная");
+        add(2, "Отвёртка", "аккумуляторная дрель");
+        add(3, "Молоток", "Без ударного механизма");
+        Item broken = add(4, "Дрель", "Сломана");
+        ItemSearchIndex.IndexedText before = ItemSearchIndex.textOf(broken);
+        broken.setAvailable(false);
+        index.update(4L, before, broken);
+
+        assertThat(search("ДРЕЛЬ", null)).containsExactly(1L, 2L);
+        assertThat(search("удар", null)).containsExactly(1L, 3L);
+        assertThat(search("ь", null)).containsExactly(1L, 2L);
+        assertThat(search("пила", null)).isEmpty();
+    }
+
+    @Test
+    void updateMovesItemBetweenPostings() {
+        Item item = add(1, "Дрель", "");
+        ItemSearchIndex.IndexedText before = ItemSearchIndex.textOf(item);
+        item.setName("Пила");
+        index.update(1L, before, item);
+
+        assertThat(search("дрель", null)).isEmpty();
+        assertThat(search("пила", null)).containsExactly(1L);
+        assertThat(index.documents()).isEqualTo(1);
+    }
+
+    @Test
+    void stopsAfterStepLimitAndResumes() {
+        // Обе триграммы запроса есть у каждой вещи, но сам запрос — только у последней
+        int total = ItemSearchIndex.MAX_STEPS + 100;
+        for (long id = 1; id < total; id++) {
+            add(id, "abc bcd", "");
+        }
+        add(total, "abcd", "");
+
+        ItemSearchIndex.Result first = index.search("abcd", null, 0, 10);
+        assertThat(first.ids()).isEmpty();
+        assertThat(first.resumeAfter()).isNotNull();
+
+        ItemSearchIndex.Result second = index.search("abcd", first.resumeAfter(), 0, 10);
+        assertThat(second.ids()).containsExactly((long) total);
+        assertThat(second.resumeAfter()).isNull();
+    }
+
+    @Test
+    void resumeKeepsUnconsumedOffset() {
+        int total = ItemSearchIndex.MAX_STEPS * 2;
+        for (long id = 1; id <= total; id++) {
+            add(id, "pila", "");
+        }
+        int from = ItemSearchIndex.MAX_STEPS + 5;
+
+        ItemSearchIndex.Result first = index.search("pila", null, from, 3);
+        assertThat(first.ids()).isEmpty();
+        assertThat(first.resumeSkip()).isEqualTo(from - ItemSearchIndex.MAX_STEPS);
+
+        ItemSearchIndex.Result second = index.search("pila", first.resumeAfter(), first.resumeSkip(), 3);
+        assertThat(second.ids()).containsExactly(from + 1L, from + 2L, from + 3L);
+        assertThat(second.resumeAfter()).isNull();
+    }
+
+    @Test
+    void intersectionSkipsAheadOverSparseLists() {
+        for (long id = 1; id <= 50_000; id++) {
+            add(id, id % 2 == 0 ? "xyz" : "qrs", "");
+        }
+        add(50_001, "xyzqrs", "");
+
+        // Списки xyz и qrs почти не пересекаются: перескоки находят общую вещь без обхода всех
+        ItemSearchIndex.Result result = index.search("yzqr", null, 0, 10);
+        assertThat(result.ids()).containsExactly(50_001L);
+        assertThat(result.resumeAfter()).isNull();
+    }
+
+    private Item add(long id, String name, String description) {
+        Item item = new Item();
+        item.setId(id);
+        item.setName(name);
+        item.setDescription(description);
+        item.setAvailable(true);
+        items.put(id, item);
+        index.index(item);
+        return item;
+    }
+
+    private List<Long> search(String text, Long afterId) {
+        return index.search(text, afterId, 0, 100).ids();
+    }
+}
@@ -0,0 +1,110 @@
+package ru.practicum.shareit.item;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import ru.practicum.shareit.booking.ApprovedBookings;
+import ru.practicum.shareit.common.CollectionVersions;
+import ru.practicum.shareit.common.DtoValidator;
+import ru.practicum.shareit.common.JsonCache;
+import ru.practicum.shareit.common.JsonCacheProperties;
+import ru.practicum.shareit.common.Cursor;
+import ru.practicum.shareit.common.Page;
+import ru.practicum.shareit.common.PageRequest;
+import ru.practicum.shareit.common.StreamPage;
+import ru.practicum.shareit.request.ItemRequestServiceImpl;
+import ru.practicum.shareit.storage.journal.FaultyJournal;
+import ru.practicum.shareit.user.UserDto;
+import ru.practicum.shareit.user.UserServiceImpl;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ItemServiceImplTest {
+    @TempDir
+    Path directory;
+
+    private FaultyJournal journal;
+    private ItemServiceImpl service;
+    private Long ownerId;
+
+    @BeforeEach
+    void open() throws IOException {
+        journal = new FaultyJournal(directory);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        DtoValidator validator = new DtoValidator(Validation.buildDefaultValidatorFactory().getValidator());
+        JsonCache cache = new JsonCache(new ObjectMapper(),
+                new JsonCacheProperties(true, DataSize.ofMegabytes(1)), registry);
+        CollectionVersions versions = new CollectionVersions();
+        UserServiceImpl users = new UserServiceImpl(validator, cache, versions, journal, registry);
+        service = new ItemServiceImpl(users, new ItemRequestServiceImpl(users, versions, journal, registry),
+                new ApprovedBookings(), validator, cache, versions, journal, registry);
+        ownerId = users.createUser(new UserDto(null, "Anna", "anna@example.com")).getId();
+    }
+
+    @AfterEach
+    void close() {
+        journal.close();
+    }
+
+    @Test
+    void failedJournalWriteLeavesSearchIndexAsStored() {
+        Long id = service.addItem(new ItemDto(null, "Дрель", "Ударная", true, null, null, null, null), ownerId).getId();
+
+        journal.failWrites(true);
+        ItemDto patch = new ItemDto();
+        patch.setName("Пила");
+        assertThatThrownBy(() -> service.updateItem(id, patch, ownerId)).isInstanceOf(IllegalStateException.class);
+        journal.failWrites(false);
+
+        assertThat(service.getItemById(id, ownerId).getName()).isEqualTo("Дрель");
+        assertThat(search("дрель")).containsExactly(id);
+        assertThat(search("пила")).isEmpty();
+
+        service.updateItem(id, patch, ownerId);
+        assertThat(search("дрель")).isEmpty();
+        assertThat(search("пила")).containsExactly(id);
+    }
+
+    @Test
+    void searchCursorCarriesOffsetAndUnsizedSearchContinues() {
+        int total = ItemSearchIndex.MAX_STEPS * 2;
+        List<ItemDto> drills = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            drills.add(new ItemDto(null, "Дрель " + i, "Ударная", true, null, null, null, null));
+        }
+        List<Long> ids = service.addItems(drills, ownerId).stream().map(result -> result.result().getId()).toList();
+        int from = ItemSearchIndex.MAX_STEPS + 5;
+
+        Page<ItemDto> first = service.searchItems("дрель", PageRequest.of(from, 3, null));
+        assertThat(first.content()).isEmpty();
+        Page<ItemDto> second = service.searchItems("дрель", PageRequest.of(0, 3, first.next().encode()));
+        assertThat(second.content()).extracting(ItemDto::getId).containsExactlyElementsOf(ids.subList(from, from + 3));
+
+        // Без size поиск тоже упирается в предел, но отдаёт курсор продолжения, в том числе потоком
+        StreamPage<ItemDto> streamed = service.streamSearchItems("дрель", PageRequest.of(0, null, null));
+        assertThat(streamed.content().count()).isEqualTo(ItemSearchIndex.MAX_STEPS);
+        List<Long> found = new ArrayList<>();
+        Cursor next = streamed.next();
+        while (next != null) {
+            Page<ItemDto> page = service.searchItems("дрель", PageRequest.of(0, null, next.encode()));
+            page.content().forEach(item -> found.add(item.getId()));
+            next = page.next();
+        }
+        assertThat(found).containsExactlyElementsOf(ids.subList(ItemSearchIndex.MAX_STEPS, total));
+    }
+
+    private List<Long> search(String text) {
+        return service.searchItems(text, PageRequest.of(0, 10, null)).content().stream().map(ItemDto::getId).toList();
+    }
+}
@@ -0,0 +1,80 @@
+package ru.practicum.shareit.request;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.item.Item;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestMatcherTest {
+    private static final long OWNER = 1L;
+    private static final long REQUESTOR = 2L;
+
+    private final RequestMatcher matcher = new RequestMatcher();
+
+    @Test
+    void commonTermStillSuggestsAndRareTermRanksFirst() {
+        // «дрель» есть у тысяч вещей, «перфоратор» — только у одной
+        LongStream.rangeClosed(1, 3000).forEach(id -> matcher.indexItem(item(id, "Дрель " + id, "Инструмент")));
+        matcher.indexItem(item(5000, "Дрель", "Перфоратор"));
+
+        matcher.indexRequest(request(1, "Нужна дрель"));
+        matcher.indexRequest(request(2, "Дрель перфоратор"));
+
+        assertThat(matcher.suggestions(1L, 10)).hasSize(10);
+        List<SuggestedItemDto> best = matcher.suggestions(2L, 10);
+        assertThat(best).hasSize(10);
+        assertThat(best.get(0).getId()).isEqualTo(5000L);
+        assertThat(best.get(0).getScore()).isEqualTo(2);
+    }
+
+    @Test
+    void unavailableItemLeavesSuggestionsAndTheyRefill() {
+        LongStream.rangeClosed(1, 20).forEach(id -> matcher.indexItem(item(id, "Дрель " + id, "Инструмент")));
+        matcher.indexRequest(request(1, "Дрель"));
+        List<Long> before = ids(matcher.suggestions(1L, 10));
+
+        before.forEach(id -> {
+            Item item = item(id, "Дрель " + id, "Инструмент");
+            item.setAvailable(false);
+            assertThat(matcher.indexItem(item)).containsExactly(REQUESTOR);
+        });
+
+        // Пересчёт случился, когда в подборке осталось меньше половины, дальше она только убывала
+        assertThat(before).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+        assertThat(ids(matcher.suggestions(1L, 10))).containsExactly(11L, 12L, 13L, 14L, 15L, 16L);
+    }
+
+    @Test
+    void concurrentIndexingMatchesEveryItemWithEveryRequest() {
+        LongStream.rangeClosed(1, 400).parallel().forEach(id -> {
+            if (id % 40 == 0) {
+                matcher.indexRequest(request(id, "Палатка " + id));
+            } else {
+                matcher.indexItem(item(id, "Палатка", "Туристическая"));
+            }
+        });
+
+        for (long id = 40; id <= 400; id += 40) {
+            assertThat(matcher.suggestions(id, 10)).hasSize(10);
+        }
+    }
+
+    private static Item item(long id, String name, String description) {
+        return new Item(id, name, description, true, OWNER, null);
+    }
+
+    private static ItemRequest request(long id, String description) {
+        ItemRequest request = new ItemRequest();
+        request.setId(id);
+        request.setDescription(description);
+        request.setRequestorId(REQUESTOR);
+        return request;
+    }
+
+    private static List<Long> ids(List<SuggestedItemDto> suggestions) {
+        return suggestions.stream().map(SuggestedItemDto::getId).toList();
+    }
+}
@@ -0,0 +1,44 @@
+package ru.practicum.shareit.storage.journal;
+
+import ru.practicum.shareit.storage.EntityCodec;
+import ru.practicum.shareit.storage.EntityStorage;
+import ru.practicum.shareit.storage.EntityStorageFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Журналируемые хранилища для тестов сервисов: все пишут в один журнал, запись в который
+ * можно ломать. Флаг переносится и на сегменты, которые журнал откроет после сбоя.
+ */
+public final class FaultyJournal implements EntityStorageFactory, AutoCloseable {
+    private final WriteAheadLog wal;
+    private volatile boolean failing;
+    private volatile FaultyChannel channel;
+
+    public FaultyJournal(Path directory) throws IOException {
+        wal = new WriteAheadLog(directory, 1, 16, file -> {
+            FaultyChannel opened = FaultyChannel.open(file);
+            opened.failWrites(failing);
+            channel = opened;
+            return opened;
+        });
+    }
+
+    @Override
+    public <T> EntityStorage<T> create(String name, EntityCodec<T> codec, Runnable afterRecovery) {
+        JournaledEntityStorage<T> storage = new JournaledEntityStorage<>(name, codec);
+        storage.attach(wal);
+        return storage;
+    }
+
+    public void failWrites(boolean fail) {
+        failing = fail;
+        channel.failWrites(fail);
+    }
+
+    @Override
+    public void close() {
+        wal.close();
+    }
+}
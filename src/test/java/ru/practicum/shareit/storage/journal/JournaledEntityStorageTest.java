@@ -0,0 +1,92 @@
+package ru.practicum.shareit.storage.journal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JournaledEntityStorageTest {
+    @TempDir
+    Path directory;
+
+    private FaultyChannel channel;
+    private WriteAheadLog wal;
+    private JournaledEntityStorage<String> storage;
+
+    @BeforeEach
+    void open() throws IOException {
+        wal = new WriteAheadLog(directory, 1, 16, file -> channel = FaultyChannel.open(file));
+        storage = new JournaledEntityStorage<>("names", new StringCodec());
+        storage.attach(wal);
+        storage.put(1L, "one");
+    }
+
+    @AfterEach
+    void close() {
+        wal.close();
+    }
+
+    @Test
+    void failedPutIsRolledBack() {
+        channel.failWrites(true);
+
+        assertThatThrownBy(() -> storage.put(1L, "changed")).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> storage.put(2L, "two")).isInstanceOf(IllegalStateException.class);
+
+        assertThat(storage.get(1L)).isEqualTo("one");
+        assertThat(storage.containsKey(2L)).isFalse();
+    }
+
+    @Test
+    void failedUpdateAndRemoveAreRolledBack() {
+        channel.failNextWrite();
+        assertThatThrownBy(() -> storage.update(1L, value -> value + "!")).isInstanceOf(IllegalStateException.class);
+        assertThat(storage.get(1L)).isEqualTo("one");
+
+        channel.failNextWrite();
+        assertThatThrownBy(() -> storage.remove(1L)).isInstanceOf(IllegalStateException.class);
+        assertThat(storage.get(1L)).isEqualTo("one");
+    }
+
+    @Test
+    void rollbackOfUpdateIsReportedToItsOnChange() {
+        List<String> changes = new ArrayList<>();
+        channel.failNextWrite();
+
+        assertThatThrownBy(() -> storage.update(1L, value -> value + "!",
+                (before, after) -> changes.add(before + " -> " + after)))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(changes).containsExactly("one -> one!", "one! -> one");
+        assertThat(storage.get(1L)).isEqualTo("one");
+    }
+
+    @Test
+    void failedPutAllIsRolledBackAndLaterWritesAreJournaled() throws IOException {
+        channel.failWrites(true);
+        assertThatThrownBy(() -> storage.putAll(Map.of(1L, "changed", 2L, "two")))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(storage.get(1L)).isEqualTo("one");
+        assertThat(storage.containsKey(2L)).isFalse();
+
+        channel.failWrites(false);
+        storage.put(3L, "three");
+        wal.close();
+
+        List<String> journaled = new ArrayList<>();
+        WriteAheadLog.replay(WriteAheadLog.segments(directory).firstEntry().getValue(), Long.MAX_VALUE,
+                record -> journaled.add(new String(record, StandardCharsets.UTF_8)));
+        assertThat(journaled).hasSize(2);
+        assertThat(journaled.get(1)).endsWith("three");
+    }
+}
@@ -0,0 +1,135 @@
+package ru.practicum.shareit.storage.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.practicum.shareit.storage.EntityCodec;
+import ru.practicum.shareit.storage.EntityStorage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JournalingEntityStorageFactoryTest {
+    private static final String NAME = "names";
+    private static final EntityCodec<String> CODEC = new StringCodec();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void trimsIncompleteTailOfLastSegment() throws IOException {
+        WriteAheadLog wal = new WriteAheadLog(directory, 1, 16);
+        wal.append(put(1, "one")).join();
+        wal.append(put(2, "two")).join();
+        wal.close();
+        Path file = WriteAheadLog.segments(directory).firstEntry().getValue();
+        long valid = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(11).putInt(100).putInt(0).flip());
+        }
+
+        JournalingEntityStorageFactory factory = factory();
+        EntityStorage<String> names = factory.create(NAME, CODEC, () -> { });
+        factory.afterSingletonsInstantiated();
+        try {
+            assertThat(names.get(1L)).isEqualTo("one");
+            assertThat(names.get(2L)).isEqualTo("two");
+            assertThat(Files.size(file)).isEqualTo(valid);
+        } finally {
+            factory.destroy();
+        }
+    }
+
+    @Test
+    void refusesToStartWhenCorruptionIsFollowedByLaterSegments() throws IOException {
+        WriteAheadLog wal = new WriteAheadLog(directory, 1, 16);
+        wal.append(put(1, "one")).join();
+        wal.append(put(2, "two")).join();
+        wal.rotate();
+        wal.append(put(3, "three")).join();
+        wal.close();
+        Path file = WriteAheadLog.segments(directory).firstEntry().getValue();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'?'}), Files.size(file) - 1);
+        }
+
+        JournalingEntityStorageFactory factory = factory();
+        factory.create(NAME, CODEC, () -> { });
+
+        assertThatThrownBy(factory::afterSingletonsInstantiated)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("followed by later segments");
+    }
+
+    @Test
+    void refusesToStartWhenCorruptedSnapshotCoveredDeletedSegments() throws IOException {
+        JournalingEntityStorageFactory factory = factory();
+        EntityStorage<String> names = factory.create(NAME, CODEC, () -> { });
+        factory.afterSingletonsInstantiated();
+        names.put(1L, "one");
+        factory.snapshot();
+        names.put(2L, "two");
+        // Остановка пишет ещё один снимок и удаляет всё, что он покрывает
+        factory.destroy();
+        Path snapshot = SnapshotFile.list(directory).lastEntry().getValue();
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'?'}), 10);
+        }
+
+        JournalingEntityStorageFactory restarted = factory();
+        restarted.create(NAME, CODEC, () -> { });
+
+        assertThatThrownBy(restarted::afterSingletonsInstantiated)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("is corrupted");
+    }
+
+    @Test
+    void replaysLogInsteadOfCorruptedSnapshotWhenSegmentsSurvive() throws IOException {
+        WriteAheadLog wal = new WriteAheadLog(directory, 1, 16);
+        wal.append(put(1, "one")).join();
+        wal.rotate();
+        wal.append(put(2, "two")).join();
+        wal.close();
+        Files.write(directory.resolve(String.format("snapshot-%020d.bin", 2)), new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9});
+
+        JournalingEntityStorageFactory factory = factory();
+        EntityStorage<String> names = factory.create(NAME, CODEC, () -> { });
+        factory.afterSingletonsInstantiated();
+        try {
+            assertThat(names.get(1L)).isEqualTo("one");
+            assertThat(names.get(2L)).isEqualTo("two");
+        } finally {
+            factory.destroy();
+        }
+    }
+
+    private JournalingEntityStorageFactory factory() {
+        return new JournalingEntityStorageFactory(
+                new PersistenceProperties(true, directory, Duration.ofMinutes(10), 16));
+    }
+
+    // Запись в формате JournaledEntityStorage: операция, имя хранилища, id, сущность
+    private static byte[] put(long id, String value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(JournaledEntityStorage.PUT);
+            out.writeUTF(NAME);
+            out.writeLong(id);
+            CODEC.write(value, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.storage.journal;
+
+import ru.practicum.shareit.storage.EntityCodec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+final class StringCodec implements EntityCodec<String> {
+    @Override
+    public void write(String entity, DataOutput out) throws IOException {
+        out.writeUTF(entity);
+    }
+
+    @Override
+    public String read(DataInput in) throws IOException {
+        return in.readUTF();
+    }
+}
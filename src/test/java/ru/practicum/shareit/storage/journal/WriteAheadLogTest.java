@@ -0,0 +1,119 @@
+package ru.practicum.shareit.storage.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WriteAheadLogTest {
+    @TempDir
+    Path directory;
+
+    private final List<FaultyChannel> channels = new ArrayList<>();
+
+    @Test
+    void recordsAfterFailedWriteSurviveReplay() throws IOException {
+        WriteAheadLog wal = open();
+        wal.append(bytes("one")).join();
+
+        lastChannel().failNextWrite();
+        assertThatThrownBy(() -> wal.append(bytes("two")).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(UncheckedIOException.class);
+
+        wal.append(bytes("three")).join();
+        wal.close();
+
+        NavigableMap<Long, Path> segments = WriteAheadLog.segments(directory);
+        assertThat(segments).hasSize(1);
+        List<String> replayed = new ArrayList<>();
+        WriteAheadLog.Replay replay = WriteAheadLog.replay(segments.firstEntry().getValue(), Long.MAX_VALUE,
+                payload -> replayed.add(string(payload)));
+        assertThat(replay.complete()).isTrue();
+        assertThat(replayed).containsExactly("one", "three");
+    }
+
+    @Test
+    void switchesSegmentWhenDamagedTailCannotBeTruncated() throws IOException {
+        WriteAheadLog wal = open();
+        wal.append(bytes("one")).join();
+
+        lastChannel().failNextWrite();
+        lastChannel().failTruncate();
+        assertThatThrownBy(() -> wal.append(bytes("two")).join()).isInstanceOf(CompletionException.class);
+
+        wal.append(bytes("three")).join();
+        wal.close();
+
+        NavigableMap<Long, Path> segments = WriteAheadLog.segments(directory);
+        assertThat(segments).hasSize(2);
+        Path first = segments.firstEntry().getValue();
+        Path second = segments.lastEntry().getValue();
+        List<String> replayed = new ArrayList<>();
+
+        // Без отметки в начале второго сегмента первый читался бы до оборванной пачки и считался испорченным
+        WriteAheadLog.Replay damaged = WriteAheadLog.replay(first, Long.MAX_VALUE, payload -> { });
+        assertThat(damaged.complete()).isFalse();
+
+        WriteAheadLog.Replay cut = WriteAheadLog.replay(first, WriteAheadLog.cutOf(second),
+                payload -> replayed.add(string(payload)));
+        WriteAheadLog.Replay next = WriteAheadLog.replay(second, Long.MAX_VALUE,
+                payload -> replayed.add(string(payload)));
+        assertThat(cut.complete()).isTrue();
+        assertThat(next.complete()).isTrue();
+        assertThat(replayed).containsExactly("one", "three");
+    }
+
+    @Test
+    void replayStopsAtIncompleteTail() throws IOException {
+        WriteAheadLog wal = new WriteAheadLog(directory, 1, 16);
+        wal.append(bytes("one")).join();
+        wal.append(bytes("two")).join();
+        wal.close();
+        Path file = WriteAheadLog.segments(directory).firstEntry().getValue();
+        long length = file.toFile().length();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(length - 1);
+        }
+
+        List<String> replayed = new ArrayList<>();
+        WriteAheadLog.Replay replay = WriteAheadLog.replay(file, Long.MAX_VALUE,
+                payload -> replayed.add(string(payload)));
+
+        assertThat(replay.complete()).isFalse();
+        assertThat(replayed).containsExactly("one");
+        assertThat(replay.validLength()).isEqualTo(8 + "one".length());
+    }
+
+    private WriteAheadLog open() throws IOException {
+        return new WriteAheadLog(directory, 1, 16, file -> {
+            FaultyChannel channel = FaultyChannel.open(file);
+            channels.add(channel);
+            return channel;
+        });
+    }
+
+    private FaultyChannel lastChannel() {
+        return channels.get(channels.size() - 1);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] payload) {
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+}
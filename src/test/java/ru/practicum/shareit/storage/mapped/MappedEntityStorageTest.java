@@ -0,0 +1,142 @@
+package ru.practicum.shareit.storage.mapped;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.practicum.shareit.storage.RecordLayout;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedEntityStorageTest {
+    private static final RecordLayout<String> LAYOUT = new RecordLayout<>() {
+        @Override
+        public int size() {
+            return STRING;
+        }
+
+        @Override
+        public void write(String entity, Writer out) {
+            out.writeString(entity);
+        }
+
+        @Override
+        public String read(Reader in) {
+            return in.readString();
+        }
+    };
+    // Строка длиннее ссылки арены (24 бита длины)
+    private static final String TOO_LONG = "x".repeat(17 << 20);
+
+    @TempDir
+    Path directory;
+
+    private MappedEntityStorage<String> storage;
+
+    @BeforeEach
+    void open() throws IOException {
+        storage = new MappedEntityStorage<>(directory, "names", LAYOUT);
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        storage.close();
+    }
+
+    @Test
+    void savesReplacesAndRemoves() {
+        storage.save(1L, "one");
+        storage.save(2L, "two");
+        assertThat(storage.put(1L, "uno")).isEqualTo("one");
+
+        assertThat(storage.get(1L)).isEqualTo("uno");
+        assertThat(storage.size()).isEqualTo(2);
+        assertThat(storage.remove(2L)).isEqualTo("two");
+        assertThat(storage.containsKey(2L)).isFalse();
+        assertThat(storage.get(2L)).isNull();
+        assertThat(storage.values()).containsExactly("uno");
+    }
+
+    @Test
+    void failedWriteKeepsPreviousValue() {
+        storage.save(1L, "one");
+
+        assertThatThrownBy(() -> storage.put(1L, TOO_LONG)).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(storage.get(1L)).isEqualTo("one");
+        // Блок прежней строки не освобождён: новая строка того же размера его не займёт
+        storage.save(2L, "two");
+        assertThat(storage.get(1L)).isEqualTo("one");
+        assertThat(storage.get(2L)).isEqualTo("two");
+    }
+
+    @Test
+    void failedWriteRestoresFieldsWrittenBeforeFailure() throws IOException {
+        RecordLayout<String[]> pairs = new RecordLayout<>() {
+            @Override
+            public int size() {
+                return 2 * STRING;
+            }
+
+            @Override
+            public void write(String[] entity, Writer out) {
+                out.writeString(entity[0]);
+                out.writeString(entity[1]);
+            }
+
+            @Override
+            public String[] read(Reader in) {
+                return new String[]{in.readString(), in.readString()};
+            }
+        };
+        try (MappedEntityStorage<String[]> pairStorage = new MappedEntityStorage<>(directory, "pairs", pairs)) {
+            pairStorage.save(1L, new String[]{"first", "second"});
+
+            assertThatThrownBy(() -> pairStorage.save(1L, new String[]{"changed", TOO_LONG}))
+                    .isInstanceOf(IllegalArgumentException.class);
+
+            assertThat(pairStorage.get(1L)).containsExactly("first", "second");
+            pairStorage.save(1L, new String[]{"third", "fourth"});
+            assertThat(pairStorage.get(1L)).containsExactly("third", "fourth");
+            assertThat(pairStorage.size()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void readersWithoutLockNeverSeeTornValues() throws InterruptedException {
+        Set<String> values = Set.of("a", "bbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbb", "cccccccccc");
+        storage.save(1L, "a");
+        // Второй ключ делит с первым арену: его перезапись переиспользует освобождённые блоки
+        storage.save(2L, "a");
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> unexpected = new AtomicReference<>();
+
+        Thread writer = Thread.ofPlatform().start(() -> {
+            String[] cycle = values.toArray(String[]::new);
+            for (int i = 0; running.get(); i++) {
+                storage.save(1L + i % 2, cycle[i % cycle.length]);
+            }
+        });
+        Thread reader = Thread.ofPlatform().start(() -> {
+            for (int i = 0; i < 200_000; i++) {
+                String value = storage.get(1L);
+                if (!values.contains(value)) {
+                    unexpected.set(value);
+                    break;
+                }
+            }
+            running.set(false);
+        });
+        reader.join();
+        writer.join();
+
+        assertThat(unexpected.get()).isNull();
+    }
+}
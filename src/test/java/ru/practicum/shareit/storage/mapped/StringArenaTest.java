@@ -0,0 +1,54 @@
+package ru.practicum.shareit.storage.mapped;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StringArenaTest {
+    @TempDir
+    Path directory;
+
+    private StringArena arena;
+
+    @BeforeEach
+    void open() throws IOException {
+        arena = new StringArena(directory.resolve("test.strings"));
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        arena.close();
+    }
+
+    @Test
+    void readsBackWhatWasAppended() {
+        long name = arena.append("Дрель");
+        long empty = arena.append("");
+        long none = arena.append(null);
+
+        assertThat(arena.read(name)).isEqualTo("Дрель");
+        assertThat(arena.read(empty)).isEmpty();
+        assertThat(arena.read(none)).isNull();
+    }
+
+    @Test
+    void reusesReleasedBlocksOfTheSameSize() {
+        long first = arena.append("value ----");
+        long used = arena.size();
+
+        for (int i = 0; i < 1000; i++) {
+            long previous = first;
+            first = arena.append(String.format("value %04d", i));
+            arena.release(previous);
+        }
+
+        assertThat(arena.size()).isLessThanOrEqualTo(2 * used);
+        assertThat(arena.read(first)).isEqualTo("value 0999");
+    }
+}
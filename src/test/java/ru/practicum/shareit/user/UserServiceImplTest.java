@@ -0,0 +1,128 @@
+package ru.practicum.shareit.user;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import ru.practicum.shareit.common.BatchResult;
+import ru.practicum.shareit.common.CollectionVersions;
+import ru.practicum.shareit.common.DtoValidator;
+import ru.practicum.shareit.common.JsonCache;
+import ru.practicum.shareit.common.JsonCacheProperties;
+import ru.practicum.shareit.exception.DuplicateEmailException;
+import ru.practicum.shareit.storage.EntityCodec;
+import ru.practicum.shareit.storage.EntityStorage;
+import ru.practicum.shareit.storage.EntityStorageFactory;
+import ru.practicum.shareit.storage.InMemoryEntityStorage;
+import ru.practicum.shareit.storage.journal.FaultyJournal;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserServiceImplTest {
+    private volatile boolean failUpdates;
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final UserServiceImpl service = service(new FailingFactory());
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void failedBatchWriteReleasesEmailsOfUnwrittenUsers() {
+        List<BatchResult<UserDto>> results = service.createUsers(List.of(
+                new UserDto(null, "Anna", "anna@example.com"),
+                new UserDto(null, "Boris", "boris@example.com")));
+
+        assertThat(results).extracting(BatchResult::status).containsExactly(201, 500);
+        assertThat(service.getUserById(results.get(0).result().getId()).getEmail()).isEqualTo("anna@example.com");
+        assertThatThrownBy(() -> service.createUser(new UserDto(null, "Anna", "ANNA@example.com")))
+                .isInstanceOf(DuplicateEmailException.class);
+        assertThat(service.createUser(new UserDto(null, "Boris", "boris@example.com")).getId()).isNotNull();
+    }
+
+    @Test
+    void updatePublishesNewUserInsteadOfChangingStoredOne() {
+        Long id = service.createUser(new UserDto(null, "Anna", "anna@example.com")).getId();
+        User before = service.getUserEntityById(id);
+
+        service.updateUser(id, new UserDto(null, "Anna Petrova", "petrova@example.com"));
+
+        assertThat(before.getName()).isEqualTo("Anna");
+        assertThat(before.getEmail()).isEqualTo("anna@example.com");
+        assertThat(service.getUserEntityById(id).getEmail()).isEqualTo("petrova@example.com");
+    }
+
+    @Test
+    void failedUpdateReleasesClaimedEmail() {
+        Long id = service.createUser(new UserDto(null, "Anna", "anna@example.com")).getId();
+
+        failUpdates = true;
+        assertThatThrownBy(() -> service.updateUser(id, new UserDto(null, null, "petrova@example.com")))
+                .isInstanceOf(IllegalStateException.class);
+        failUpdates = false;
+
+        assertThat(service.getUserById(id).getEmail()).isEqualTo("anna@example.com");
+        assertThat(service.createUser(new UserDto(null, "Other", "petrova@example.com")).getId()).isNotNull();
+        assertThatThrownBy(() -> service.createUser(new UserDto(null, "Other", "anna@example.com")))
+                .isInstanceOf(DuplicateEmailException.class);
+    }
+
+    @Test
+    void failedJournalWriteKeepsPreviousEmailReserved() throws IOException {
+        try (FaultyJournal journal = new FaultyJournal(directory)) {
+            UserServiceImpl journaled = service(journal);
+            Long id = journaled.createUser(new UserDto(null, "Anna", "anna@example.com")).getId();
+
+            journal.failWrites(true);
+            assertThatThrownBy(() -> journaled.updateUser(id, new UserDto(null, null, "petrova@example.com")))
+                    .isInstanceOf(IllegalStateException.class);
+            journal.failWrites(false);
+
+            assertThat(journaled.getUserById(id).getEmail()).isEqualTo("anna@example.com");
+            assertThatThrownBy(() -> journaled.createUser(new UserDto(null, "Other", "anna@example.com")))
+                    .isInstanceOf(DuplicateEmailException.class);
+            assertThat(journaled.createUser(new UserDto(null, "Other", "petrova@example.com")).getId()).isNotNull();
+        }
+    }
+
+    private UserServiceImpl service(EntityStorageFactory storageFactory) {
+        return new UserServiceImpl(
+                new DtoValidator(Validation.buildDefaultValidatorFactory().getValidator()),
+                new JsonCache(new ObjectMapper(), new JsonCacheProperties(false, DataSize.ofMegabytes(1)), registry),
+                new CollectionVersions(),
+                storageFactory,
+                registry);
+    }
+
+    // Пакетная запись сохраняет первую сущность и падает; update при failUpdates применяет patch, но не пишет
+    private class FailingFactory implements EntityStorageFactory {
+        @Override
+        public <T> EntityStorage<T> create(String name, EntityCodec<T> codec, Runnable afterRecovery) {
+            return new InMemoryEntityStorage<>() {
+                @Override
+                public void putAll(Map<Long, T> entities) {
+                    Map.Entry<Long, T> first = entities.entrySet().iterator().next();
+                    save(first.getKey(), first.getValue());
+                    throw new IllegalStateException("Disk full");
+                }
+
+                @Override
+                public T update(Long id, UnaryOperator<T> patch) {
+                    if (!failUpdates) {
+                        return super.update(id, patch);
+                    }
+                    locked(id, () -> patch.apply(get(id)));
+                    throw new IllegalStateException("Disk full");
+                }
+            };
+        }
+    }
+}